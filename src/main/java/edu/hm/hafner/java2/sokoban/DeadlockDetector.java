@@ -0,0 +1,337 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects positions that can't be solved anymore because of the treasures around the last pushed treasure. Two kinds
+ * of deadlocks are detected:
+ * <ul>
+ *     <li>Freeze deadlocks: a treasure that is not on a target can't be moved anymore. A treasure is frozen if it is
+ *     blocked horizontally and vertically. An axis is blocked by a wall, by dead squares on both sides or by a frozen
+ *     treasure. Hence, 2x2 blocks of treasures and treasures along walls that block each other are detected.</li>
+ *     <li>Closed corral deadlocks: an area with an empty target that the player can't reach since it is enclosed by
+ *     walls and frozen treasures only. No treasure will ever reach that target.</li>
+ * </ul>
+ * Both checks start at the last pushed treasure and the corral check is limited to {@value #CORRAL_LIMIT} fields,
+ * so a check only examines the neighborhood of the push. Every detected deadlock is stored as a pattern of the
+ * involved treasures, subsequent positions that contain the same pattern are recognized with a single lookup.
+ *
+ * <p>
+ * The scratch buffers are reused between calls, so an instance must not be shared between threads.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+final class DeadlockDetector {
+    /** Maximum number of fields of a corral. */
+    static final int CORRAL_LIMIT = 64;
+    /** Maximum number of deadlock patterns that are stored. */
+    static final int PATTERN_LIMIT = 4096;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte CHECKING = 1;
+    private static final byte FROZEN = 2;
+    private static final byte MOVABLE = 3;
+
+    private final SolverBoard board;
+    private final int[] deltas;
+    private final int horizontal;
+    private final int vertical;
+
+    private final boolean[] occupied;
+    private final int[] stamps;
+    private final byte[] states;
+    private int stamp;
+    private final int[] frozen;
+    private int frozenCount;
+
+    private final int[] regionStamps;
+    private int regionStamp;
+    private final int[] region;
+    private final int[] border;
+
+    private final Map<Integer, List<Pattern>> patterns = new HashMap<>();
+    private int patternCount;
+    private long patternHits;
+
+    /**
+     * Creates a new detector for the specified board.
+     *
+     * @param board the board
+     */
+    DeadlockDetector(final SolverBoard board) {
+        this.board = board;
+        deltas = board.getDeltas();
+        horizontal = deltas[Orientation.RIGHT.ordinal()];
+        vertical = deltas[Orientation.DOWN.ordinal()];
+
+        int size = board.size();
+        occupied = new boolean[size];
+        stamps = new int[size];
+        states = new byte[size];
+        frozen = new int[size];
+        regionStamps = new int[size];
+        region = new int[CORRAL_LIMIT];
+        border = new int[CORRAL_LIMIT * deltas.length];
+    }
+
+    /**
+     * Returns whether the position is a deadlock because of the treasure that has just been pushed.
+     *
+     * @param treasures the cells of all treasures
+     * @param player    the cell of the player
+     * @param pushed    the cell of the treasure that has just been pushed
+     * @return {@code true} if the position can't be solved anymore
+     */
+    boolean isDeadlocked(final int[] treasures, final int player, final int pushed) {
+        occupy(treasures, true);
+        try {
+            return check(player, pushed);
+        }
+        finally {
+            occupy(treasures, false);
+        }
+    }
+
+    /**
+     * Returns whether the position is a deadlock because of any of the treasures.
+     *
+     * @param treasures the cells of all treasures
+     * @param player    the cell of the player
+     * @return {@code true} if the position can't be solved anymore
+     */
+    boolean isDeadlocked(final int[] treasures, final int player) {
+        occupy(treasures, true);
+        try {
+            for (int treasure : treasures) {
+                if (check(player, treasure)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        finally {
+            occupy(treasures, false);
+        }
+    }
+
+    /**
+     * Returns the number of stored deadlock patterns.
+     *
+     * @return the number of patterns
+     */
+    int getPatternCount() {
+        return patternCount;
+    }
+
+    /**
+     * Returns the number of deadlocks that have been recognized by a stored pattern.
+     *
+     * @return the number of pattern hits
+     */
+    long getPatternHits() {
+        return patternHits;
+    }
+
+    private boolean check(final int player, final int pushed) {
+        if (matchesPattern(player, pushed)) {
+            patternHits++;
+            return true;
+        }
+
+        stamp++;
+        frozenCount = 0;
+        if (isFrozen(pushed) && isAnyFrozenOffTarget()) {
+            addPattern(Arrays.copyOf(frozen, frozenCount), new int[0], new int[0]);
+            return true;
+        }
+
+        regionStamp++;
+        for (int delta : deltas) {
+            if (isClosedCorral(player, pushed + delta)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isAnyFrozenOffTarget() {
+        for (int i = 0; i < frozenCount; i++) {
+            if (!board.isTarget(frozen[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the treasure on the specified cell can't be moved anymore. While the neighbors of a treasure
+     * are checked, the treasure itself is treated like a wall. If the treasure turns out to be movable, then all
+     * treasures that have been considered frozen under that assumption are checked again on demand.
+     */
+    private boolean isFrozen(final int cell) {
+        byte state = getState(cell);
+        if (state != UNKNOWN) {
+            return state != MOVABLE;
+        }
+
+        setState(cell, CHECKING);
+        int start = frozenCount;
+        if (isBlocked(cell, horizontal) && isBlocked(cell, vertical)) {
+            setState(cell, FROZEN);
+            frozen[frozenCount++] = cell;
+            return true;
+        }
+        for (int i = start; i < frozenCount; i++) {
+            setState(frozen[i], UNKNOWN);
+        }
+        frozenCount = start;
+        setState(cell, MOVABLE);
+        return false;
+    }
+
+    private boolean isBlocked(final int cell, final int delta) {
+        int before = cell - delta;
+        int after = cell + delta;
+        if (!board.isFloor(before) || !board.isFloor(after)) {
+            return true;
+        }
+        if (board.isDead(before) && board.isDead(after)) {
+            return true;
+        }
+        return occupied[before] && isFrozen(before) || occupied[after] && isFrozen(after);
+    }
+
+    /**
+     * Returns whether the area that starts at the specified cell is a closed corral with an empty target: the area is
+     * not reachable by the player, and it is enclosed by walls and frozen treasures only.
+     */
+    private boolean isClosedCorral(final int player, final int start) {
+        if (!board.isFloor(start) || occupied[start] || regionStamps[start] == regionStamp) {
+            return false;
+        }
+
+        int size = 0;
+        int borderSize = 0;
+        boolean hasTarget = false;
+        regionStamps[start] = regionStamp;
+        region[size++] = start;
+        for (int head = 0; head < size; head++) {
+            int cell = region[head];
+            if (cell == player) {
+                return false;
+            }
+            hasTarget |= board.isTarget(cell);
+            for (int delta : deltas) {
+                int next = cell + delta;
+                if (occupied[next]) {
+                    border[borderSize++] = next;
+                }
+                else if (board.isFloor(next) && regionStamps[next] != regionStamp) {
+                    if (size == CORRAL_LIMIT) {
+                        return false;
+                    }
+                    regionStamps[next] = regionStamp;
+                    region[size++] = next;
+                }
+            }
+        }
+        if (!hasTarget) {
+            return false;
+        }
+        for (int i = 0; i < borderSize; i++) {
+            if (!isFrozen(border[i])) {
+                return false;
+            }
+        }
+
+        int[] cells = Arrays.copyOf(region, size);
+        int targetCount = 0;
+        int[] targets = new int[size];
+        for (int cell : cells) {
+            if (board.isTarget(cell)) {
+                targets[targetCount++] = cell;
+            }
+        }
+        addPattern(Arrays.copyOf(frozen, frozenCount), Arrays.copyOf(targets, targetCount), cells);
+        return true;
+    }
+
+    private boolean matchesPattern(final int player, final int pushed) {
+        List<Pattern> candidates = patterns.get(pushed);
+        if (candidates != null) {
+            for (Pattern pattern : candidates) {
+                if (pattern.matches(occupied, player)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addPattern(final int[] treasures, final int[] emptyCells, final int[] corral) {
+        if (patternCount == PATTERN_LIMIT) {
+            return;
+        }
+
+        Pattern pattern = new Pattern(treasures, emptyCells, corral);
+        for (int treasure : treasures) {
+            patterns.computeIfAbsent(treasure, cell -> new ArrayList<>()).add(pattern);
+        }
+        patternCount++;
+    }
+
+    private byte getState(final int cell) {
+        return stamps[cell] == stamp ? states[cell] : UNKNOWN;
+    }
+
+    private void setState(final int cell, final byte state) {
+        stamps[cell] = stamp;
+        states[cell] = state;
+    }
+
+    private void occupy(final int[] treasures, final boolean value) {
+        for (int treasure : treasures) {
+            occupied[treasure] = value;
+        }
+    }
+
+    /**
+     * A deadlock that has been detected before: the position is a deadlock if all treasure cells are occupied, all
+     * empty cells are free and the player is not inside the corral.
+     */
+    private static final class Pattern {
+        private final int[] treasures;
+        private final int[] emptyCells;
+        private final int[] corral;
+
+        Pattern(final int[] treasures, final int[] emptyCells, final int[] corral) {
+            this.treasures = treasures;
+            this.emptyCells = emptyCells;
+            this.corral = corral;
+        }
+
+        boolean matches(final boolean[] occupied, final int player) {
+            for (int treasure : treasures) {
+                if (!occupied[treasure]) {
+                    return false;
+                }
+            }
+            for (int cell : emptyCells) {
+                if (occupied[cell]) {
+                    return false;
+                }
+            }
+            for (int cell : corral) {
+                if (cell == player) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.Arrays;
+
+/**
+ * The push distances of a {@link Sokoban} level: for every field and every target the minimum number of pushes that
+ * are required to move a treasure from the field to the target, ignoring all other treasures. The distances depend on
+ * the level layout only, so a table is computed once per level and shared by all positions of that level, see
+ * {@link Sokoban#getDistanceTable()}.
+ *
+ * <p>
+ * Fields are identified by their cell index {@code y * width + x}, targets by their index in row-major order. The
+ * distances are stored in a single {@code short} array, the distances of all targets of a field are adjacent.
+ * Distances that exceed the range of a {@code short} are clamped, so they are still a lower bound.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public final class DistanceTable {
+    /** Distance of a field from which a target cannot be reached. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final short NONE = -1;
+
+    private final int width;
+    private final int[] targets;
+    private final short[] distances;
+
+    /**
+     * Computes the distance table of the specified level.
+     *
+     * @param sokoban the level
+     */
+    DistanceTable(final Sokoban sokoban) {
+        width = sokoban.getWidth();
+        int cells = width * sokoban.getHeight();
+
+        int count = 0;
+        int[] found = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            if (sokoban.getField(cell % width, cell / width) == Field.TARGET) {
+                found[count++] = cell;
+            }
+        }
+        targets = Arrays.copyOf(found, count);
+
+        distances = new short[cells * count];
+        Arrays.fill(distances, NONE);
+        int[] queue = new int[cells];
+        for (int target = 0; target < count; target++) {
+            computePushDistances(sokoban, target, queue);
+        }
+    }
+
+    /**
+     * Pulls a treasure away from the target in all directions: a treasure can be pulled from a field to a neighbor if
+     * the neighbor and the field behind the neighbor (the position of the pulling player) are not blocked.
+     */
+    private void computePushDistances(final Sokoban sokoban, final int target, final int[] queue) {
+        int head = 0;
+        int tail = 0;
+        setDistance(target, targets[target], 0);
+        queue[tail++] = targets[target];
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            int distance = distances[cell * targets.length + target];
+            for (Orientation orientation : Orientation.values()) {
+                int previousX = x + orientation.getDeltaX();
+                int previousY = y + orientation.getDeltaY();
+                if (isFloor(sokoban, previousX, previousY)
+                        && isFloor(sokoban, previousX + orientation.getDeltaX(), previousY + orientation.getDeltaY())) {
+                    int previous = previousY * width + previousX;
+                    if (distances[previous * targets.length + target] == NONE) {
+                        setDistance(target, previous, distance + 1);
+                        queue[tail++] = previous;
+                    }
+                }
+            }
+        }
+    }
+
+    private void setDistance(final int target, final int cell, final int distance) {
+        distances[cell * targets.length + target] = (short) Math.min(distance, Short.MAX_VALUE);
+    }
+
+    /**
+     * Returns whether the specified field is a floor or target field. Since the level is surrounded by a border of
+     * background fields, the coordinates may be one field outside of the level.
+     */
+    private boolean isFloor(final Sokoban sokoban, final int x, final int y) {
+        Field field = sokoban.getField(x, y);
+        return field == Field.FLOOR || field == Field.TARGET;
+    }
+
+    /**
+     * Returns the number of targets of the level.
+     *
+     * @return the number of targets
+     */
+    public int getTargetCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the cell index of the specified target.
+     *
+     * @param target the index of the target
+     * @return the cell index
+     */
+    public int getTarget(final int target) {
+        return targets[target];
+    }
+
+    /**
+     * Returns the number of pushes that are required to move a treasure from the specified field to the specified
+     * target.
+     *
+     * @param target the index of the target
+     * @param cell   the cell index of the field
+     * @return the number of pushes, or {@link #UNREACHABLE}
+     */
+    public int getDistance(final int target, final int cell) {
+        short distance = distances[cell * targets.length + target];
+        return distance == NONE ? UNREACHABLE : distance;
+    }
+
+    /**
+     * Returns the number of pushes that are required to move a treasure from the specified field to the closest
+     * target.
+     *
+     * @param cell the cell index of the field
+     * @return the number of pushes, or {@link #UNREACHABLE} if no target can be reached
+     */
+    public int getMinimumDistance(final int cell) {
+        int minimum = UNREACHABLE;
+        int offset = cell * targets.length;
+        for (int target = 0; target < targets.length; target++) {
+            short distance = distances[offset + target];
+            if (distance != NONE && distance < minimum) {
+                minimum = distance;
+            }
+        }
+        return minimum;
+    }
+}
@@ -0,0 +1,213 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws a Sokoban level incrementally. The renderer keeps the last frame together with the last known positions of
+ * the player and the treasures. A subsequent render pass repaints only the fields whose state has changed (typically
+ * two or three fields per move) and reports the changed area as dirty rectangle. A new level (see
+ * {@link Sokoban#getLevelRevision()}) is always drawn completely. A player or treasure outside the level is not drawn.
+ *
+ * @author Julian Wagner
+ */
+public class IncrementalSokobanRenderer {
+    private static final int NO_REVISION = 0;
+    private static final int OUTSIDE = -1;
+
+    private final SokobanImageRenderer renderer;
+
+    private BufferedImage image;
+    private int width;
+    private int height;
+    private int levelRevision = NO_REVISION;
+
+    private int player = OUTSIDE;
+    private Orientation orientation;
+    private int[] treasures = new int[0];
+    private int[] nextTreasures = new int[0];
+    private int treasureCount;
+    private boolean[] occupied = new boolean[0];
+
+    private int[] marks = new int[0];
+    private int generation;
+
+    private int[] dirtyCells = new int[0];
+    private int dirtyCount;
+
+    /**
+     * Creates a new incremental renderer that uses the shared {@link TileAtlas}.
+     */
+    public IncrementalSokobanRenderer() {
+        this(new SokobanImageRenderer());
+    }
+
+    /**
+     * Creates a new incremental renderer that draws the fields with the specified renderer.
+     *
+     * @param renderer the renderer to draw the fields with
+     */
+    public IncrementalSokobanRenderer(final SokobanImageRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Returns the last rendered frame.
+     *
+     * @return the last frame, or {@code null} if nothing has been rendered yet
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Discards the last known state so that the next render pass draws the whole level.
+     */
+    public void invalidate() {
+        levelRevision = NO_REVISION;
+    }
+
+    /**
+     * Brings the last frame up to date with the specified level. If another level has been set since the last frame
+     * or if the renderer has been invalidated, then the whole level is drawn.
+     *
+     * @param sokoban     the level to draw
+     * @param orientation the orientation of the player
+     * @return the area of the frame that has been changed (in pixels), an empty rectangle if nothing changed
+     */
+    public Rectangle render(final Sokoban sokoban, final Orientation orientation) {
+        if (levelRevision == NO_REVISION || levelRevision != sokoban.getLevelRevision()
+                || !renderer.isCompatible(sokoban, image)) {
+            return renderAll(sokoban, orientation);
+        }
+
+        dirtyCount = 0;
+        int newPlayer = toCell(sokoban.getPlayer());
+        if (newPlayer != player || orientation != this.orientation) {
+            addDirty(player);
+            addDirty(newPlayer);
+        }
+        updateTreasures(sokoban.getTreasures());
+        player = newPlayer;
+        this.orientation = orientation;
+
+        if (dirtyCount == 0) {
+            return new Rectangle();
+        }
+        return repaintDirtyCells(sokoban);
+    }
+
+    private Rectangle renderAll(final Sokoban sokoban, final Orientation orientation) {
+        image = renderer.toImage(sokoban, orientation, image);
+        width = sokoban.getWidth();
+        height = sokoban.getHeight();
+        levelRevision = sokoban.getLevelRevision();
+
+        int cells = width * sokoban.getHeight();
+        if (occupied.length != cells) {
+            occupied = new boolean[cells];
+            marks = new int[cells];
+            treasureCount = 0;
+        }
+        else {
+            for (int i = 0; i < treasureCount; i++) {
+                occupied[treasures[i]] = false;
+            }
+        }
+        dirtyCount = 0;
+        updateTreasures(sokoban.getTreasures());
+        player = toCell(sokoban.getPlayer());
+        this.orientation = orientation;
+
+        return new Rectangle(0, 0, image.getWidth(), image.getHeight());
+    }
+
+    private void updateTreasures(final PointSet positions) {
+        generation++;
+        if (nextTreasures.length < positions.size()) {
+            nextTreasures = new int[positions.size()];
+        }
+        int size = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            int cell = toCell(positions.get(i));
+            if (cell == OUTSIDE) {
+                continue;
+            }
+            nextTreasures[size++] = cell;
+            marks[cell] = generation;
+            if (!occupied[cell]) {
+                addDirty(cell);
+            }
+        }
+        for (int i = 0; i < treasureCount; i++) {
+            int cell = treasures[i];
+            if (marks[cell] != generation) {
+                occupied[cell] = false;
+                addDirty(cell);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            occupied[nextTreasures[i]] = true;
+        }
+
+        int[] previous = treasures;
+        treasures = nextTreasures;
+        nextTreasures = previous;
+        treasureCount = size;
+    }
+
+    private Rectangle repaintDirtyCells(final Sokoban sokoban) {
+        TileAtlas atlas = renderer.getAtlas();
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+
+        Graphics2D graphics = image.createGraphics();
+        try {
+            for (int i = 0; i < dirtyCount; i++) {
+                int cell = dirtyCells[i];
+                int x = cell % width;
+                int y = cell / width;
+                renderer.drawTile(graphics, atlas.getTile(sokoban.getField(x, y)), x, y);
+                if (cell == player) {
+                    renderer.drawTile(graphics, atlas.getTile(orientation), x, y);
+                }
+                if (occupied[cell]) {
+                    renderer.drawTile(graphics, atlas.getTile(TileAtlas.TREASURE), x, y);
+                }
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            }
+        }
+        finally {
+            graphics.dispose();
+        }
+
+        int blockSize = renderer.getBlockSize();
+        return new Rectangle(minX * blockSize, minY * blockSize,
+                (maxX - minX + 1) * blockSize, (maxY - minY + 1) * blockSize);
+    }
+
+    private void addDirty(final int cell) {
+        if (cell == OUTSIDE) {
+            return;
+        }
+        if (dirtyCount == dirtyCells.length) {
+            int[] cells = new int[Math.max(dirtyCount * 2, 4)];
+            System.arraycopy(dirtyCells, 0, cells, 0, dirtyCount);
+            dirtyCells = cells;
+        }
+        dirtyCells[dirtyCount++] = cell;
+    }
+
+    private int toCell(final Point point) {
+        if (point.getX() >= width || point.getY() >= height) {
+            return OUTSIDE;
+        }
+        return point.getY() * width + point.getX();
+    }
+}
@@ -0,0 +1,276 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Provides random access to the levels of a large collection in the XSB text format, see {@link XsbLevelReader}. The
+ * collection file is memory-mapped and a single level is decoded on demand, without reading the other levels.
+ *
+ * <p>
+ * The positions of the levels are stored in an index file next to the collection (the name of the collection with
+ * the suffix {@value #INDEX_SUFFIX}). The index is built by a single scan over the mapped bytes when the collection
+ * is opened for the first time or if the collection has been changed since, otherwise the index file is mapped as
+ * well. So looking up a level costs one read of the index and the parsing of that level only. If the index file can't
+ * be written, e.g. since the directory is read-only, then the index is kept in memory only.
+ * </p>
+ *
+ * <p>
+ * After {@link #close()} levels can't be decoded anymore. The mappings are released by the garbage collector once the
+ * buffers are no longer referenced, they are not unmapped forcibly.
+ * </p>
+ *
+ * <p>
+ * Index format: magic number, version, size and modification time of the collection, number of levels, then the
+ * byte offset of the first row of each level as {@code int}. Collections are limited to 2 GB.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public class IndexedLevelCollection implements Closeable {
+    /** Suffix of the index file. */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x58534249;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+    private static final int COUNT_POSITION = HEADER_SIZE - 4;
+
+    private volatile ByteBuffer collection;
+    private volatile ByteBuffer index;
+    private final int size;
+
+    /**
+     * Opens the specified collection. If there is no up-to-date index, then the index is built and written next to
+     * the collection.
+     *
+     * @param path the file of the collection
+     * @throws IOException if the collection can't be mapped or the index can't be read
+     */
+    public IndexedLevelCollection(final Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path must not be null!");
+        }
+
+        long fileSize = Files.size(path);
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Collection %s is larger than 2 GB!", path));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            collection = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        Path indexPath = getIndexPath(path);
+        ByteBuffer existing = readIndex(indexPath, fileSize, modified);
+        if (existing == null) {
+            index = createIndex(fileSize, modified);
+            try {
+                writeIndex(indexPath, index);
+            }
+            catch (IOException exception) {
+                // the index is rebuilt the next time the collection is opened
+            }
+        }
+        else {
+            index = existing;
+        }
+        size = index.getInt(COUNT_POSITION);
+    }
+
+    /**
+     * Returns the path of the index file of the specified collection.
+     *
+     * @param path the file of the collection
+     * @return the path of the index file
+     */
+    public static Path getIndexPath(final Path path) {
+        return path.resolveSibling(path.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Returns the number of levels in the collection.
+     *
+     * @return the number of levels
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decodes the level with the specified index.
+     *
+     * @param level the index of the level, starting with 0
+     * @return the level, with player and treasures set, but not validated yet
+     * @throws IllegalArgumentException if the index is not valid or the level does not contain exactly one player
+     * @throws IllegalStateException    if the collection has been closed
+     */
+    public Sokoban getLevel(final int level) {
+        ByteBuffer levels = collection;
+        ByteBuffer offsets = index;
+        if (levels == null || offsets == null) {
+            throw new IllegalStateException("Collection has been closed!");
+        }
+        if (level < 0 || level >= size) {
+            throw new IllegalArgumentException(String.format("Index has to be between %d and %d", 0, size));
+        }
+
+        int start = getOffset(offsets, level);
+        int end = level + 1 < size ? getOffset(offsets, level + 1) : levels.limit();
+        ByteBuffer bytes = levels.duplicate();
+        ((Buffer) bytes).limit(end).position(start); // Buffer methods: ByteBuffer overrides exist from Java 9 on
+
+        return new XsbLevelReader(new AsciiReader(bytes)).next();
+    }
+
+    /**
+     * Closes this collection. Levels that are decoded concurrently are completed, subsequent calls of {@link
+     * #getLevel(int)} fail.
+     */
+    @Override
+    public void close() {
+        collection = null;
+        index = null;
+    }
+
+    private static int getOffset(final ByteBuffer offsets, final int level) {
+        return offsets.getInt(HEADER_SIZE + level * 4);
+    }
+
+    /**
+     * Maps the specified index file. Returns {@code null} if the file does not exist or does not belong to the
+     * current content of the collection. The header is checked before the file is mapped, so outdated index files
+     * are never mapped.
+     */
+    private static ByteBuffer readIndex(final Path indexPath, final long fileSize, final long modified)
+            throws IOException {
+        if (!Files.isRegularFile(indexPath) || Files.size(indexPath) < HEADER_SIZE) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getLong(8) != fileSize || header.getLong(16) != modified) {
+                return null;
+            }
+            int count = header.getInt(COUNT_POSITION);
+            if (count < 0 || channel.size() != HEADER_SIZE + (long) count * 4) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Scans the mapped collection for the first rows of the levels. Uses the same rules as the {@link XsbLevelReader}:
+     * a level starts with the first board line that follows a line that is not part of a board.
+     */
+    private ByteBuffer createIndex(final long fileSize, final long modified) {
+        int[] offsets = new int[1024];
+        int count = 0;
+        boolean isInLevel = false;
+        int limit = collection.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && collection.get(end) != '\n') {
+                end++;
+            }
+            boolean isBoardLine = isBoardLine(start, end);
+            if (isBoardLine && !isInLevel) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count++] = start;
+            }
+            isInLevel = isBoardLine;
+            start = end + 1;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + count * 4);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(fileSize).putLong(modified).putInt(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(offsets[i]);
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    private boolean isBoardLine(final int start, final int end) {
+        int length = end;
+        while (length > start && XsbLevelReader.isBlank(collection.get(length - 1))) {
+            length--;
+        }
+        boolean hasWall = false;
+        for (int i = start; i < length; i++) {
+            byte character = collection.get(i);
+            if (!XsbLevelReader.isBoardCharacter(character)) {
+                return false;
+            }
+            hasWall |= character == '#';
+        }
+        return hasWall;
+    }
+
+    /**
+     * Writes the index into a temporary file that replaces the index file afterwards. So a concurrent reader never
+     * sees an incomplete index.
+     */
+    private static void writeIndex(final Path indexPath, final ByteBuffer index) throws IOException {
+        Path temporary = Files.createTempFile(indexPath.toAbsolutePath().getParent(), "index-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer content = index.duplicate();
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads the bytes of a buffer as characters. The board characters are ASCII, all other bytes are part of titles
+     * or comments that are skipped by the {@link XsbLevelReader} anyway.
+     */
+    private static final class AsciiReader extends Reader {
+        private final ByteBuffer bytes;
+
+        AsciiReader(final ByteBuffer bytes) {
+            super();
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (!bytes.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, bytes.remaining());
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (char) (bytes.get() & 0xFF);
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
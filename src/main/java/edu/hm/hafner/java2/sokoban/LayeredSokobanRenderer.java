@@ -0,0 +1,119 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws a Sokoban level in two layers. The static terrain layer (walls, floors, targets and background) is rendered
+ * once per level and cached. Each frame then erases the sprites of the previous frame by copying the affected fields
+ * from the terrain layer and draws the player and the treasures on top. So the cost of a frame is proportional to the
+ * number of movable objects rather than to the size of the board.
+ *
+ * @author Julian Wagner
+ */
+public class LayeredSokobanRenderer {
+    private final SokobanImageRenderer renderer;
+
+    private BufferedImage terrain;
+    private int terrainRevision;
+    private BufferedImage frame;
+
+    private int[] sprites = new int[0];
+    private int spriteCount;
+    private int width;
+
+    /**
+     * Creates a new layered renderer that uses the shared {@link TileAtlas}.
+     */
+    public LayeredSokobanRenderer() {
+        this(new SokobanImageRenderer());
+    }
+
+    /**
+     * Creates a new layered renderer that draws the tiles with the specified renderer.
+     *
+     * @param renderer the renderer to draw the tiles with
+     */
+    public LayeredSokobanRenderer(final SokobanImageRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Returns the Sokoban level as an image. The returned image is reused by subsequent calls.
+     *
+     * @param sokoban     the level to draw
+     * @param orientation the orientation of the player
+     * @return an image of this board
+     */
+    public BufferedImage toImage(final Sokoban sokoban, final Orientation orientation) {
+        Graphics2D graphics;
+        if (terrain == null || terrainRevision != sokoban.getLevelRevision()) {
+            renderTerrain(sokoban);
+            graphics = frame.createGraphics();
+            graphics.drawImage(terrain, 0, 0, null);
+        }
+        else {
+            graphics = frame.createGraphics();
+            eraseSprites(graphics);
+        }
+
+        try {
+            renderer.drawSprites(graphics, sokoban, orientation);
+        }
+        finally {
+            graphics.dispose();
+        }
+        rememberSprites(sokoban);
+
+        return frame;
+    }
+
+    /**
+     * Returns the cached terrain layer.
+     *
+     * @return the terrain layer, or {@code null} if nothing has been rendered yet
+     */
+    BufferedImage getTerrain() {
+        return terrain;
+    }
+
+    private void renderTerrain(final Sokoban sokoban) {
+        terrain = renderer.createImage(sokoban, terrain);
+        frame = renderer.createImage(sokoban, frame);
+        Graphics2D graphics = terrain.createGraphics();
+        try {
+            renderer.drawFields(graphics, sokoban, 0, sokoban.getHeight());
+        }
+        finally {
+            graphics.dispose();
+        }
+        terrainRevision = sokoban.getLevelRevision();
+        width = sokoban.getWidth();
+        spriteCount = 0;
+    }
+
+    private void eraseSprites(final Graphics2D graphics) {
+        int blockSize = renderer.getBlockSize();
+        for (int i = 0; i < spriteCount; i++) {
+            int left = sprites[i] % width * blockSize;
+            int top = sprites[i] / width * blockSize;
+            graphics.drawImage(terrain, left, top, left + blockSize, top + blockSize,
+                    left, top, left + blockSize, top + blockSize, null);
+        }
+    }
+
+    private void rememberSprites(final Sokoban sokoban) {
+        PointSet treasures = sokoban.getTreasures();
+        int size = treasures.size() + 1;
+        if (sprites.length < size) {
+            sprites = new int[size];
+        }
+        Point player = sokoban.getPlayer();
+        sprites[0] = player.getY() * width + player.getX();
+        for (int i = 0; i < treasures.size(); i++) {
+            Point treasure = treasures.get(i);
+            sprites[i + 1] = treasure.getY() * width + treasure.getX();
+        }
+        spriteCount = size;
+    }
+}
@@ -0,0 +1,192 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.Arrays;
+
+/**
+ * Computes the minimum-cost perfect matching between treasures (rows) and targets (columns) with the Hungarian
+ * algorithm. The cost of a pair is the push distance of the treasure to the target, so the total cost of the
+ * matching is a lower bound of the pushes that are required to solve a position.
+ *
+ * <p>
+ * A complete solution takes {@code O(n^3)}. If only the costs of a single row change, e.g. since one treasure has
+ * been pushed, then {@link #update(int)} reuses the previous solution: the row is removed from the matching, its
+ * potential is lowered so that all reduced costs remain non-negative, and a single augmenting path is searched in
+ * {@code O(n^2)}. Since the dual potentials stay feasible and all other matched pairs stay tight, the result is
+ * optimal again. With {@link #save()} and {@link #restore()} several alternative updates of the same solution can be
+ * evaluated, as required when the children of a search node are generated.
+ * </p>
+ *
+ * <p>
+ * The arrays are 1-based, index 0 is used by the algorithm as a virtual row and column.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+final class MinimumCostMatching {
+    /** Cost of pairs that can't be matched. A total cost of at least this value means no perfect matching exists. */
+    static final int INFINITE = 1 << 22;
+
+    private final int size;
+    private final int[][] costs;
+    private final int[] rowPotential;
+    private final int[] columnPotential;
+    private final int[] matching;
+
+    private final int[] way;
+    private final int[] minimum;
+    private final boolean[] used;
+
+    private final int[] savedRowPotential;
+    private final int[] savedColumnPotential;
+    private final int[] savedMatching;
+
+    /**
+     * Creates a new matching for the specified number of rows and columns.
+     *
+     * @param size the number of treasures and targets
+     */
+    MinimumCostMatching(final int size) {
+        this.size = size;
+        costs = new int[size + 1][size + 1];
+        rowPotential = new int[size + 1];
+        columnPotential = new int[size + 1];
+        matching = new int[size + 1];
+        way = new int[size + 1];
+        minimum = new int[size + 1];
+        used = new boolean[size + 1];
+        savedRowPotential = new int[size + 1];
+        savedColumnPotential = new int[size + 1];
+        savedMatching = new int[size + 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Sets the cost of matching the specified row with the specified column.
+     *
+     * @param row    the row (0-based)
+     * @param column the column (0-based)
+     * @param cost   the cost, values greater than {@link #INFINITE} are treated as {@link #INFINITE}
+     */
+    void setCost(final int row, final int column, final int cost) {
+        costs[row + 1][column + 1] = Math.min(cost, INFINITE);
+    }
+
+    /**
+     * Computes the matching from scratch.
+     *
+     * @return the total cost of the matching, at least {@link #INFINITE} if there is no perfect matching
+     */
+    int solve() {
+        Arrays.fill(rowPotential, 0);
+        Arrays.fill(columnPotential, 0);
+        Arrays.fill(matching, 0);
+        for (int row = 1; row <= size; row++) {
+            augment(row);
+        }
+        return getTotal();
+    }
+
+    /**
+     * Updates the matching after the costs of the specified row have been changed. The other rows must not have
+     * been changed since the last call of {@link #solve()} or {@link #update(int)}.
+     *
+     * @param row the changed row (0-based)
+     * @return the total cost of the matching, at least {@link #INFINITE} if there is no perfect matching
+     */
+    int update(final int row) {
+        int changed = row + 1;
+        for (int column = 1; column <= size; column++) {
+            if (matching[column] == changed) {
+                matching[column] = 0;
+            }
+        }
+        int potential = Integer.MAX_VALUE;
+        for (int column = 1; column <= size; column++) {
+            potential = Math.min(potential, costs[changed][column] - columnPotential[column]);
+        }
+        rowPotential[changed] = potential;
+        augment(changed);
+        return getTotal();
+    }
+
+    /**
+     * Saves the current solution, so that it can be restored after evaluating an update.
+     */
+    void save() {
+        System.arraycopy(rowPotential, 0, savedRowPotential, 0, size + 1);
+        System.arraycopy(columnPotential, 0, savedColumnPotential, 0, size + 1);
+        System.arraycopy(matching, 0, savedMatching, 0, size + 1);
+    }
+
+    /**
+     * Restores the solution that has been saved by {@link #save()}. The costs are not restored.
+     */
+    void restore() {
+        System.arraycopy(savedRowPotential, 0, rowPotential, 0, size + 1);
+        System.arraycopy(savedColumnPotential, 0, columnPotential, 0, size + 1);
+        System.arraycopy(savedMatching, 0, matching, 0, size + 1);
+    }
+
+    /**
+     * Searches a shortest augmenting path from the specified free row to a free column and updates the potentials
+     * and the matching along that path.
+     */
+    private void augment(final int row) {
+        matching[0] = row;
+        int column = 0;
+        Arrays.fill(minimum, Integer.MAX_VALUE);
+        Arrays.fill(used, false);
+        do {
+            used[column] = true;
+            int matchedRow = matching[column];
+            int delta = Integer.MAX_VALUE;
+            int next = 0;
+            for (int j = 1; j <= size; j++) {
+                if (!used[j]) {
+                    int reduced = costs[matchedRow][j] - rowPotential[matchedRow] - columnPotential[j];
+                    if (reduced < minimum[j]) {
+                        minimum[j] = reduced;
+                        way[j] = column;
+                    }
+                    if (minimum[j] < delta) {
+                        delta = minimum[j];
+                        next = j;
+                    }
+                }
+            }
+            for (int j = 0; j <= size; j++) {
+                if (used[j]) {
+                    rowPotential[matching[j]] += delta;
+                    columnPotential[j] -= delta;
+                }
+                else {
+                    minimum[j] -= delta;
+                }
+            }
+            column = next;
+        }
+        while (matching[column] != 0);
+        do {
+            int previous = way[column];
+            matching[column] = matching[previous];
+            column = previous;
+        }
+        while (column != 0);
+    }
+
+    /**
+     * Returns the total cost of the current matching.
+     *
+     * @return the total cost, at least {@link #INFINITE} if there is no perfect matching
+     */
+    int getTotal() {
+        long total = 0;
+        for (int column = 1; column <= size; column++) {
+            total += costs[matching[column]][column];
+        }
+        return (int) Math.min(total, INFINITE);
+    }
+}
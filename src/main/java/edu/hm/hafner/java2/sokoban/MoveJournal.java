@@ -0,0 +1,187 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.Arrays;
+
+/**
+ * Records the moves of a Sokoban game in a compact form. Each move is stored as a single byte that contains the
+ * direction and a flag whether a treasure has been pushed. In order to jump to an arbitrary position in the history,
+ * a checkpoint of the whole state (the player and all treasure positions) is stored every
+ * {@value #CHECKPOINT_INTERVAL} moves.
+ *
+ * @author Julian Wagner
+ */
+class MoveJournal {
+    /** Number of moves between two checkpoints. */
+    static final int CHECKPOINT_INTERVAL = 128;
+
+    private static final int DIRECTION_MASK = 0x3;
+    private static final int PUSH_FLAG = 0x4;
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+    private byte[] moves = new byte[CHECKPOINT_INTERVAL];
+    private int size;
+    private int position;
+
+    private int[] checkpoints = new int[0];
+    private int checkpointCount;
+    private int stateSize;
+
+    /**
+     * Removes all moves and checkpoints.
+     */
+    void clear() {
+        size = 0;
+        position = 0;
+        checkpointCount = 0;
+    }
+
+    /**
+     * Returns the current position in the history, i.e. the number of moves that have been made (and not undone).
+     *
+     * @return the current position
+     */
+    int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the number of recorded moves, including the moves that have been undone.
+     *
+     * @return the number of recorded moves
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether a checkpoint needs to be recorded before the next move is recorded.
+     *
+     * @return {@code true} if a checkpoint is required
+     */
+    boolean isCheckpointRequired() {
+        return position % CHECKPOINT_INTERVAL == 0 && position / CHECKPOINT_INTERVAL >= checkpointCount;
+    }
+
+    /**
+     * Records a checkpoint of the state at the current position.
+     *
+     * @param state the state (the player field followed by the treasure fields)
+     * @param length the number of valid values in the state array
+     */
+    void addCheckpoint(final int[] state, final int length) {
+        if (checkpointCount == 0) {
+            stateSize = length;
+        }
+        int required = (checkpointCount + 1) * stateSize;
+        if (checkpoints.length < required) {
+            checkpoints = Arrays.copyOf(checkpoints, Math.max(required, checkpoints.length * 2));
+        }
+        System.arraycopy(state, 0, checkpoints, checkpointCount * stateSize, stateSize);
+        checkpointCount++;
+    }
+
+    /**
+     * Records a move at the current position. All moves after the current position (that have been undone before)
+     * are discarded.
+     *
+     * @param orientation the direction of the move
+     * @param isPush      determines whether a treasure has been pushed
+     */
+    void record(final Orientation orientation, final boolean isPush) {
+        if (position == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        checkpointCount = Math.min(checkpointCount, position / CHECKPOINT_INTERVAL + 1);
+        moves[position] = (byte) (orientation.ordinal() | (isPush ? PUSH_FLAG : 0));
+        position++;
+        size = position;
+    }
+
+    /**
+     * Returns whether there is a move that can be undone.
+     *
+     * @return {@code true} if there is a move before the current position
+     */
+    boolean canUndo() {
+        return position > 0;
+    }
+
+    /**
+     * Returns whether there is a move that can be redone.
+     *
+     * @return {@code true} if there is a move after the current position
+     */
+    boolean canRedo() {
+        return position < size;
+    }
+
+    /**
+     * Steps back one move and returns the encoded move.
+     *
+     * @return the encoded move
+     */
+    int undo() {
+        position--;
+        return moves[position];
+    }
+
+    /**
+     * Steps forward one move and returns the encoded move.
+     *
+     * @return the encoded move
+     */
+    int redo() {
+        return moves[position++];
+    }
+
+    /**
+     * Returns the position of the checkpoint that is closest before the specified position.
+     *
+     * @param target the position to jump to
+     * @return the position of the checkpoint
+     */
+    int getCheckpointPosition(final int target) {
+        return Math.min(target / CHECKPOINT_INTERVAL, checkpointCount - 1) * CHECKPOINT_INTERVAL;
+    }
+
+    /**
+     * Moves the current position to the checkpoint at the specified position and returns the offset of the state of
+     * that checkpoint.
+     *
+     * @param checkpointPosition the position of the checkpoint
+     * @return the offset of the checkpoint state in {@link #getCheckpoints()}
+     */
+    int restore(final int checkpointPosition) {
+        position = checkpointPosition;
+        return checkpointPosition / CHECKPOINT_INTERVAL * stateSize;
+    }
+
+    /**
+     * Returns the array that stores the states of all checkpoints.
+     *
+     * @return the checkpoint states
+     */
+    int[] getCheckpoints() {
+        return checkpoints;
+    }
+
+    /**
+     * Returns the direction of an encoded move.
+     *
+     * @param move the encoded move
+     * @return the direction
+     */
+    static Orientation getOrientation(final int move) {
+        return ORIENTATIONS[move & DIRECTION_MASK];
+    }
+
+    /**
+     * Returns whether a treasure has been pushed by an encoded move.
+     *
+     * @param move the encoded move
+     * @return {@code true} if a treasure has been pushed
+     */
+    static boolean isPush(final int move) {
+        return (move & PUSH_FLAG) != 0;
+    }
+}
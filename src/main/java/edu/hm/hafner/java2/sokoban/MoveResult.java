@@ -0,0 +1,25 @@
+package edu.hm.hafner.java2.sokoban;
+
+/**
+ * Result of a player move.
+ *
+ * @author Julian Wagner
+ * @see Sokoban#move(Orientation)
+ */
+public enum MoveResult {
+    /** The move was not possible since a wall or a blocked treasure is in the way. */
+    BLOCKED,
+    /** The player walked onto a free field. */
+    WALKED,
+    /** The player pushed a treasure to the next field. */
+    PUSHED;
+
+    /**
+     * Returns whether the player has been moved.
+     *
+     * @return {@code true} if the player has been moved, {@code false} if the move was blocked
+     */
+    public boolean hasMoved() {
+        return this != BLOCKED;
+    }
+}
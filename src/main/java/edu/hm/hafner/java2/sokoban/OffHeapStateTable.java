@@ -0,0 +1,340 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stores the minimal number of pushes of each visited search state outside of the Java heap. The table uses open
+ * addressing with linear probing over fixed-width records in direct {@link ByteBuffer ByteBuffers}. A record
+ * consists of the 64-bit Zobrist key of the state, the number of pushes and the packed cells of the player and the
+ * treasures (16 bit per cell on boards with at most 65536 cells, otherwise 32 bit).
+ *
+ * <p>
+ * The table starts small and doubles its capacity when it is filled to three quarters, until the configured maximum
+ * size is reached. If a spill directory is specified, the records are stored in a memory-mapped temporary file in
+ * that directory rather than in direct memory, so the operating system can page out parts of a table that is larger
+ * than the available RAM. The table is split into segments of at most {@value #SEGMENT_SIZE} bytes since a single
+ * buffer can't address more than 2 GB.
+ * </p>
+ *
+ * <p>
+ * Each spill file is opened with {@link StandardOpenOption#DELETE_ON_CLOSE} and its channel is kept open as long as
+ * the file is mapped, so the file is removed by the operating system when the channel is closed, even on platforms
+ * that refuse to delete mapped files. Replaced segments and the segments of a closed table are dropped and released
+ * by the garbage collector, they are never unmapped forcibly.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+final class OffHeapStateTable implements AutoCloseable {
+    /** Value that is returned for states that are not stored in the table. */
+    static final int ABSENT = -1;
+
+    private static final int SEGMENT_SIZE = 1 << 30;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final int KEY_OFFSET = 0;
+    private static final int VALUE_OFFSET = 8;
+    private static final int CELLS_OFFSET = 12;
+    private static final long EMPTY = 0;
+
+    private final int stateLength;
+    private final boolean isWide;
+    private final int recordSize;
+    private final long maximumCapacity;
+    private final Path spillDirectory;
+
+    private ByteBuffer[] segments;
+    private FileChannel spillChannel;
+    private int recordsPerSegment;
+    private long capacity;
+    private long mask;
+    private long size;
+
+    /**
+     * Creates a new table.
+     *
+     * @param treasureCount  the number of treasures of a state
+     * @param cellCount      the number of cells of the board
+     * @param maximumSize    the maximum size of the table in bytes
+     * @param spillDirectory the directory of the memory-mapped file that stores the table, or {@code null} to store
+     *                       the table in direct memory
+     * @throws IllegalArgumentException if the maximum size is too small for the initial capacity
+     */
+    OffHeapStateTable(final int treasureCount, final int cellCount, final long maximumSize,
+            final Path spillDirectory) {
+        stateLength = treasureCount + 1;
+        isWide = cellCount > 1 << 16;
+        recordSize = CELLS_OFFSET + stateLength * (isWide ? Integer.BYTES : Character.BYTES);
+        maximumCapacity = Long.highestOneBit(maximumSize / recordSize);
+        if (maximumCapacity < INITIAL_CAPACITY) {
+            throw new IllegalArgumentException(String.format(
+                    "Maximum size of %d bytes is too small for %d states!", maximumSize, INITIAL_CAPACITY));
+        }
+        this.spillDirectory = spillDirectory;
+
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns the number of stored states.
+     *
+     * @return the number of states
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of states the table can hold without growing.
+     *
+     * @return the capacity
+     */
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of bytes the table currently occupies.
+     *
+     * @return the size in bytes
+     */
+    long getByteSize() {
+        return capacity * recordSize;
+    }
+
+    /**
+     * Returns whether the table has reached its maximum size. A full table still accepts some more states, but the
+     * search should be stopped.
+     *
+     * @return {@code true} if the table can't grow anymore
+     */
+    boolean isFull() {
+        return capacity == maximumCapacity && isLoadFactorExceeded();
+    }
+
+    /**
+     * Returns the number of pushes that are stored for the state of the specified node.
+     *
+     * @param node the node that describes the state
+     * @return the number of pushes, or {@link #ABSENT} if the state is not stored
+     */
+    int get(final SearchNode node) {
+        long slot = find(node);
+        if (slot < 0) {
+            return ABSENT;
+        }
+        return segment(slot).getInt(offset(slot) + VALUE_OFFSET);
+    }
+
+    /**
+     * Stores the number of pushes of the specified node if its state is not stored yet or if the stored number of
+     * pushes is greater.
+     *
+     * @param node the node to store
+     * @return {@code true} if the node has been stored, {@code false} if the state is already stored with the same
+     *         or fewer pushes
+     * @throws IllegalStateException if there is no free slot left
+     */
+    boolean offer(final SearchNode node) {
+        long slot = find(node);
+        if (slot >= 0) {
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            if (segment.getInt(offset + VALUE_OFFSET) <= node.getPushes()) {
+                return false;
+            }
+            segment.putInt(offset + VALUE_OFFSET, node.getPushes());
+            return true;
+        }
+
+        if (isLoadFactorExceeded() && capacity < maximumCapacity) {
+            grow();
+        }
+        if (size + 1 >= capacity) {
+            throw new IllegalStateException(String.format("State table is full: %d states", size));
+        }
+        write(toKey(node.getKey()), node.getPushes(), node.getPlayer(), node.getTreasures());
+        return true;
+    }
+
+    @Override
+    public void close() {
+        segments = new ByteBuffer[0];
+        capacity = 0;
+        size = 0;
+        closeChannel(spillChannel);
+        spillChannel = null;
+    }
+
+    private boolean isLoadFactorExceeded() {
+        return size >= capacity - (capacity >> 2);
+    }
+
+    /**
+     * Returns the slot of the specified state, or the bitwise complement of the first empty slot of the probe
+     * sequence if the state is not stored.
+     */
+    private long find(final SearchNode node) {
+        long key = toKey(node.getKey());
+        for (long slot = key & mask; ; slot = (slot + 1) & mask) {
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            long stored = segment.getLong(offset + KEY_OFFSET);
+            if (stored == EMPTY) {
+                return ~slot;
+            }
+            if (stored == key && hasState(segment, offset, node.getPlayer(), node.getTreasures())) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean hasState(final ByteBuffer segment, final int offset, final int player, final int[] treasures) {
+        if (getCell(segment, offset, 0) != player) {
+            return false;
+        }
+        for (int i = 0; i < treasures.length; i++) {
+            if (getCell(segment, offset, i + 1) != treasures[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(final long key, final int value, final int player, final int[] treasures) {
+        long slot = key & mask;
+        while (segment(slot).getLong(offset(slot) + KEY_OFFSET) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+        segment.putLong(offset + KEY_OFFSET, key);
+        segment.putInt(offset + VALUE_OFFSET, value);
+        putCell(segment, offset, 0, player);
+        for (int i = 0; i < treasures.length; i++) {
+            putCell(segment, offset, i + 1, treasures[i]);
+        }
+        size++;
+    }
+
+    private int getCell(final ByteBuffer segment, final int offset, final int index) {
+        if (isWide) {
+            return segment.getInt(offset + CELLS_OFFSET + index * Integer.BYTES);
+        }
+        return segment.getChar(offset + CELLS_OFFSET + index * Character.BYTES);
+    }
+
+    private void putCell(final ByteBuffer segment, final int offset, final int index, final int cell) {
+        if (isWide) {
+            segment.putInt(offset + CELLS_OFFSET + index * Integer.BYTES, cell);
+        }
+        else {
+            segment.putChar(offset + CELLS_OFFSET + index * Character.BYTES, (char) cell);
+        }
+    }
+
+    /**
+     * Doubles the capacity and moves all records into the new segments.
+     */
+    private void grow() {
+        ByteBuffer[] oldSegments = segments;
+        int oldRecordsPerSegment = recordsPerSegment;
+        long oldCapacity = capacity;
+        FileChannel oldSpillChannel = spillChannel;
+
+        allocate(capacity * 2);
+
+        int[] treasures = new int[stateLength - 1];
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            ByteBuffer segment = oldSegments[(int) (slot / oldRecordsPerSegment)];
+            int offset = (int) (slot % oldRecordsPerSegment) * recordSize;
+            long key = segment.getLong(offset + KEY_OFFSET);
+            if (key != EMPTY) {
+                for (int i = 0; i < treasures.length; i++) {
+                    treasures[i] = getCell(segment, offset, i + 1);
+                }
+                write(key, segment.getInt(offset + VALUE_OFFSET), getCell(segment, offset, 0), treasures);
+            }
+        }
+        closeChannel(oldSpillChannel);
+    }
+
+    private void allocate(final long newCapacity) {
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+        size = 0;
+        recordsPerSegment = (int) Math.min(newCapacity, SEGMENT_SIZE / recordSize);
+        int segmentCount = (int) ((newCapacity + recordsPerSegment - 1) / recordsPerSegment);
+        segments = new ByteBuffer[segmentCount];
+
+        if (spillDirectory == null) {
+            for (int i = 0; i < segmentCount; i++) {
+                segments[i] = ByteBuffer.allocateDirect(getSegmentSize(i));
+            }
+        }
+        else {
+            map(segmentCount);
+        }
+    }
+
+    private void map(final int segmentCount) {
+        FileChannel channel = null;
+        try {
+            Path spillFile = Files.createTempFile(spillDirectory, "states-", ".bin");
+            channel = FileChannel.open(spillFile,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            long position = 0;
+            for (int i = 0; i < segmentCount; i++) {
+                int segmentSize = getSegmentSize(i);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, segmentSize);
+                position += segmentSize;
+            }
+            spillChannel = channel;
+        }
+        catch (IOException exception) {
+            closeChannel(channel);
+            throw new UncheckedIOException("Can't create state table in " + spillDirectory, exception);
+        }
+    }
+
+    private int getSegmentSize(final int index) {
+        long records = Math.min(recordsPerSegment, capacity - (long) index * recordsPerSegment);
+        return (int) records * recordSize;
+    }
+
+    private ByteBuffer segment(final long slot) {
+        return segments[(int) (slot / recordsPerSegment)];
+    }
+
+    private int offset(final long slot) {
+        return (int) (slot % recordsPerSegment) * recordSize;
+    }
+
+    /**
+     * Closes the channel of a spill file, which deletes the file. The mapped segments stay valid until they are
+     * garbage collected, which also releases the memory of direct segments.
+     */
+    private static void closeChannel(final FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            }
+            catch (IOException exception) {
+                throw new UncheckedIOException("Can't close state table", exception);
+            }
+        }
+    }
+
+    /**
+     * Maps a Zobrist key to a record key. The value 0 marks empty slots, so it is replaced by another value.
+     */
+    private static long toKey(final long key) {
+        long mixed = key ^ key >>> 29;
+        return mixed == EMPTY ? 1 : mixed;
+    }
+}
@@ -6,5 +6,31 @@ package edu.hm.hafner.java2.sokoban;
  * @author Ullrich Hafner
  */
 public enum Orientation {
-    LEFT, RIGHT, UP, DOWN
+    LEFT(-1, 0), RIGHT(1, 0), UP(0, -1), DOWN(0, 1);
+
+    private final int deltaX;
+    private final int deltaY;
+
+    Orientation(final int deltaX, final int deltaY) {
+        this.deltaX = deltaX;
+        this.deltaY = deltaY;
+    }
+
+    /**
+     * Returns the change of the x coordinate if a step in this direction is made.
+     *
+     * @return the change of the x coordinate
+     */
+    public int getDeltaX() {
+        return deltaX;
+    }
+
+    /**
+     * Returns the change of the y coordinate if a step in this direction is made.
+     *
+     * @return the change of the y coordinate
+     */
+    public int getDeltaY() {
+        return deltaY;
+    }
 }
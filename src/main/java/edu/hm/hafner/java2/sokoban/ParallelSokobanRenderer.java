@@ -0,0 +1,220 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Draws very large Sokoban levels in parallel. The board image is split into horizontal strips that are rendered on
+ * a fork-join pool into one shared raster. Instead of {@link java.awt.Graphics#drawImage} the tiles are copied
+ * directly into the {@link DataBufferInt} of the image. The player and treasure tiles are composited with the
+ * underlying field once, when the renderer is created, so the output is pixel-identical to the image of the
+ * sequential {@link SokobanImageRenderer}.
+ *
+ * @author Julian Wagner
+ */
+public class ParallelSokobanRenderer implements AutoCloseable {
+    private static final int MINIMUM_ROWS_PER_STRIP = 4;
+    private static final int STRIPS_PER_THREAD = 4;
+    private static final int TREASURE = Orientation.values().length;
+    private static final int OVERLAYS = TREASURE * 2 + 1;
+
+    private final SokobanImageRenderer renderer;
+    private final int blockSize;
+    private final ForkJoinPool pool;
+
+    private final int[][] fieldTiles;
+    private final int[][][] spriteTiles;
+
+    /**
+     * Creates a new parallel renderer that uses the shared {@link TileAtlas} and all available processors.
+     */
+    public ParallelSokobanRenderer() {
+        this(new SokobanImageRenderer(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new parallel renderer.
+     *
+     * @param renderer    the sequential renderer that provides the tiles
+     * @param parallelism the number of threads to render with
+     * @throws IllegalArgumentException if the parallelism is not positive
+     */
+    public ParallelSokobanRenderer(final SokobanImageRenderer renderer, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(String.format("Parallelism %d must be positive!", parallelism));
+        }
+
+        this.renderer = renderer;
+        blockSize = renderer.getBlockSize();
+        pool = new ForkJoinPool(parallelism);
+
+        Field[] fields = Field.values();
+        fieldTiles = new int[fields.length][];
+        spriteTiles = new int[fields.length][OVERLAYS][];
+        for (Field field : fields) {
+            fieldTiles[field.ordinal()] = composeTile(field, null, false);
+            for (Orientation orientation : Orientation.values()) {
+                spriteTiles[field.ordinal()][orientation.ordinal()] = composeTile(field, orientation, false);
+                spriteTiles[field.ordinal()][TREASURE + 1 + orientation.ordinal()]
+                        = composeTile(field, orientation, true);
+            }
+            spriteTiles[field.ordinal()][TREASURE] = composeTile(field, null, true);
+        }
+    }
+
+    /**
+     * Returns the number of threads that are used to render a level.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Returns the Sokoban level as an image.
+     *
+     * @param sokoban     the level to draw
+     * @param orientation the orientation of the player
+     * @return an image of this board
+     */
+    public BufferedImage toImage(final Sokoban sokoban, final Orientation orientation) {
+        return toImage(sokoban, orientation, null);
+    }
+
+    /**
+     * Draws the Sokoban level into the specified target image. If the target is {@code null} or does not match the
+     * size and type of the level image, then a new image is created. The target may share its pixels with a larger
+     * image, e.g. if it has been created by {@link BufferedImage#getSubimage(int, int, int, int)}.
+     *
+     * @param sokoban     the level to draw
+     * @param orientation the orientation of the player
+     * @param target      the image to draw into, might be {@code null}
+     * @return an image of this board, either the target or a new image
+     */
+    public BufferedImage toImage(final Sokoban sokoban, final Orientation orientation, final BufferedImage target) {
+        BufferedImage image = target != null && target.getType() == BufferedImage.TYPE_INT_RGB
+                ? renderer.createImage(sokoban, target) : renderer.createImage(sokoban, null);
+        WritableRaster raster = image.getRaster();
+        DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+        SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+        int[] pixels = buffer.getData();
+        int scanline = model.getScanlineStride();
+        int base = buffer.getOffset()
+                + model.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+
+        int height = sokoban.getHeight();
+        int rowsPerStrip = Math.max(MINIMUM_ROWS_PER_STRIP,
+                height / (pool.getParallelism() * STRIPS_PER_THREAD));
+        pool.invoke(new StripAction(sokoban, pixels, base, scanline, 0, height, rowsPerStrip));
+
+        drawSprites(sokoban, orientation, pixels, base, scanline);
+
+        return image;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private void drawSprites(final Sokoban sokoban, final Orientation orientation,
+            final int[] pixels, final int base, final int scanline) {
+        Point player = sokoban.getPlayer();
+        PointSet treasures = sokoban.getTreasures();
+        int playerOverlay = treasures.contains(player)
+                ? TREASURE + 1 + orientation.ordinal() : orientation.ordinal();
+        copySprite(sokoban, player, playerOverlay, pixels, base, scanline);
+        for (int i = 0; i < treasures.size(); i++) {
+            Point treasure = treasures.get(i);
+            if (!treasure.isEqualTo(player)) {
+                copySprite(sokoban, treasure, TREASURE, pixels, base, scanline);
+            }
+        }
+    }
+
+    private void copySprite(final Sokoban sokoban, final Point position, final int overlay,
+            final int[] pixels, final int base, final int scanline) {
+        int x = position.getX();
+        int y = position.getY();
+        copyTile(spriteTiles[sokoban.getField(x, y).ordinal()][overlay], pixels, base, scanline, x, y);
+    }
+
+    private void copyTile(final int[] tile, final int[] pixels, final int base, final int scanline,
+            final int x, final int y) {
+        int offset = base + y * blockSize * scanline + x * blockSize;
+        for (int row = 0; row < blockSize; row++) {
+            System.arraycopy(tile, row * blockSize, pixels, offset, blockSize);
+            offset += scanline;
+        }
+    }
+
+    private int[] composeTile(final Field field, final Orientation orientation, final boolean hasTreasure) {
+        TileAtlas atlas = renderer.getAtlas();
+        BufferedImage tile = new BufferedImage(blockSize, blockSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = tile.createGraphics();
+        try {
+            renderer.drawTile(graphics, atlas.getTile(field), 0, 0);
+            if (orientation != null) {
+                renderer.drawTile(graphics, atlas.getTile(orientation), 0, 0);
+            }
+            if (hasTreasure) {
+                renderer.drawTile(graphics, atlas.getTile(TileAtlas.TREASURE), 0, 0);
+            }
+        }
+        finally {
+            graphics.dispose();
+        }
+        return ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Renders the fields of a range of rows. Ranges that are larger than a strip are split in halves.
+     */
+    private class StripAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Sokoban sokoban;
+        private final int[] pixels;
+        private final int base;
+        private final int scanline;
+        private final int fromRow;
+        private final int toRow;
+        private final int rowsPerStrip;
+
+        StripAction(final Sokoban sokoban, final int[] pixels, final int base, final int scanline,
+                final int fromRow, final int toRow, final int rowsPerStrip) {
+            super();
+
+            this.sokoban = sokoban;
+            this.pixels = pixels;
+            this.base = base;
+            this.scanline = scanline;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.rowsPerStrip = rowsPerStrip;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= rowsPerStrip) {
+                int width = sokoban.getWidth();
+                for (int y = fromRow; y < toRow; y++) {
+                    for (int x = 0; x < width; x++) {
+                        copyTile(fieldTiles[sokoban.getField(x, y).ordinal()], pixels, base, scanline, x, y);
+                    }
+                }
+            }
+            else {
+                int middle = (fromRow + toRow) >>> 1;
+                invokeAll(new StripAction(sokoban, pixels, base, scanline, fromRow, middle, rowsPerStrip),
+                        new StripAction(sokoban, pixels, base, scanline, middle, toRow, rowsPerStrip));
+            }
+        }
+    }
+}
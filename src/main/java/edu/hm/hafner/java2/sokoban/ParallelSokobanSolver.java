@@ -0,0 +1,264 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solves Sokoban levels with a parallel A* search over pushes. The search works in batches: all open nodes with the
+ * minimal estimated cost (up to a fixed number per thread) are removed from the open queue and processed in parallel
+ * on a fork-join pool, idle threads steal the remaining parts of a batch. The workers skip parents that have been
+ * superseded by a cheaper path, test for the goal, expand the remaining parents and deduplicate the children in a
+ * shared {@link TranspositionTable} that is keyed by the Zobrist hash of the states. The surviving children of each
+ * parent are sorted by the worker, afterwards these sorted runs are added to the open queue in the order of their
+ * parents. Children that have been superseded by another child of the same batch are skipped at that point: whether
+ * such a child has been accepted by the table depends on the timing of the workers, so it must not reach the queue.
+ *
+ * <p>
+ * Every node gets a rank from the position of its parent in the expansion order and the index of its push. Ties
+ * between equal nodes are broken by that rank, both in the open queue and in the transposition table. So for a fixed
+ * seed and parallelism the solver finds the same solution with the same statistics in every run. Like the
+ * {@link SokobanSolver} the number of pushes of a found solution is minimal.
+ * </p>
+ *
+ * <p>
+ * Scaling limit: the open queue is a single binary heap that is owned by the calling thread. Polling a batch and
+ * inserting the children (O(log n) per node) remain sequential, and a batch never mixes different estimated costs,
+ * since otherwise a goal with a higher cost could be returned before a cheaper one has been generated. So the speedup
+ * is bounded by the share of the expansion in the work per node and by the number of open nodes per cost layer:
+ * levels whose layers hold only a few nodes are searched by a single thread in effect. Use
+ * {@code ParallelSokobanSolverBenchmark} to measure the nodes per second for different numbers of threads.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public class ParallelSokobanSolver implements AutoCloseable {
+    private static final int BATCH_SIZE_PER_THREAD = 64;
+    private static final int TASKS_PER_THREAD = 8;
+    private static final Comparator<SearchNode> BEST_FIRST
+            = SokobanSolver.BEST_FIRST.thenComparingLong(SearchNode::getRank);
+
+    private static final SearchNode[] NO_CHILDREN = new SearchNode[0];
+    private static final SearchNode[] SOLVED = new SearchNode[0];
+
+    private final ForkJoinPool pool;
+    private final long seed;
+    private final int nodeLimit;
+
+    /**
+     * Creates a new solver that uses all available processors, the default seed and the default node limit.
+     */
+    public ParallelSokobanSolver() {
+        this(Runtime.getRuntime().availableProcessors(), ZobristKeys.DEFAULT_SEED, SokobanSolver.DEFAULT_NODE_LIMIT);
+    }
+
+    /**
+     * Creates a new solver.
+     *
+     * @param parallelism the number of threads to search with
+     * @param seed        the seed of the Zobrist keys that are used to hash the search states
+     * @param nodeLimit   the maximum number of nodes that are expanded before the search is stopped
+     * @throws IllegalArgumentException if the parallelism or the limit is not positive
+     */
+    public ParallelSokobanSolver(final int parallelism, final long seed, final int nodeLimit) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(String.format("Parallelism %d must be positive!", parallelism));
+        }
+        if (nodeLimit <= 0) {
+            throw new IllegalArgumentException(String.format("Node limit %d must be positive!", nodeLimit));
+        }
+        pool = new ForkJoinPool(parallelism);
+        this.seed = seed;
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Returns the number of threads that are used to solve a level.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Solves the specified level. The level is not changed.
+     *
+     * @param sokoban the level to solve
+     * @return the solution, see {@link Solution#isSolved()}
+     * @throws IllegalArgumentException if the level is not valid
+     */
+    public Solution solve(final Sokoban sokoban) {
+        sokoban.validate();
+
+        long start = System.nanoTime();
+        SolverBoard board = new SolverBoard(sokoban, seed);
+        PushGenerator generator = new PushGenerator(board);
+        SearchNode root = generator.createRoot();
+        if (root == null) {
+            return new Solution(false, false, Collections.<Orientation>emptyList(), 0, 0, 0,
+                    System.nanoTime() - start);
+        }
+
+        Generators generators = new Generators(board);
+        long pushesPerNode = (long) board.getTargets().length * board.getDeltas().length;
+        int batchSize = getParallelism() * BATCH_SIZE_PER_THREAD;
+
+        TranspositionTable table = new TranspositionTable(getParallelism());
+        PriorityQueue<SearchNode> open = new PriorityQueue<>(BEST_FIRST);
+        LongAdder generated = new LongAdder();
+        LongAdder expanded = new LongAdder();
+        table.offer(root);
+        open.add(root);
+        generated.increment();
+
+        long polled = 0;
+        List<SearchNode> batch = new ArrayList<>(batchSize);
+        while (!open.isEmpty()) {
+            if (expanded.sum() >= nodeLimit) {
+                return new Solution(false, true, Collections.<Orientation>emptyList(), 0,
+                        expanded.sum(), generated.sum(), System.nanoTime() - start);
+            }
+            batch.clear();
+            int cost = open.peek().getCost();
+            long size = Math.min(batchSize, nodeLimit - expanded.sum());
+            while (!open.isEmpty() && open.peek().getCost() == cost && batch.size() < size) {
+                batch.add(open.poll());
+            }
+
+            SearchNode[] parents = batch.toArray(new SearchNode[0]);
+            SearchNode[][] children = new SearchNode[parents.length][];
+            int grain = Math.max(1, parents.length / (getParallelism() * TASKS_PER_THREAD));
+            pool.invoke(new ExpandAction(parents, children, 0, parents.length, grain,
+                    polled, pushesPerNode, generators, table, generated, expanded));
+            polled += parents.length;
+
+            for (int i = 0; i < parents.length; i++) {
+                if (children[i] == SOLVED) {
+                    SearchNode node = parents[i];
+                    return new Solution(true, false, generator.toMoves(node), node.getPushes(),
+                            expanded.sum(), generated.sum(), System.nanoTime() - start);
+                }
+            }
+            for (SearchNode[] run : children) {
+                for (SearchNode child : run) {
+                    if (table.get(child) == child) { // skips children that have been superseded in the same batch
+                        open.add(child);
+                    }
+                }
+            }
+        }
+        return new Solution(false, false, Collections.<Orientation>emptyList(), 0,
+                expanded.sum(), generated.sum(), System.nanoTime() - start);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Expands a range of the parents of a batch. Ranges that are larger than the grain are split into two halves.
+     * The children of a parent are sorted by {@link #BEST_FIRST}. Superseded parents get no children, a parent that
+     * solves the level gets the marker {@link #SOLVED}.
+     */
+    private static class ExpandAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient SearchNode[] parents;
+        private final transient SearchNode[][] children;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final long firstIndex;
+        private final long pushesPerNode;
+        private final transient Generators generators;
+        private final transient TranspositionTable table;
+        private final LongAdder generated;
+        private final LongAdder expanded;
+
+        ExpandAction(final SearchNode[] parents, final SearchNode[][] children, final int from, final int to,
+                final int grain, final long firstIndex, final long pushesPerNode,
+                final Generators generators, final TranspositionTable table,
+                final LongAdder generated, final LongAdder expanded) {
+            super();
+
+            this.parents = parents;
+            this.children = children;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.firstIndex = firstIndex;
+            this.pushesPerNode = pushesPerNode;
+            this.generators = generators;
+            this.table = table;
+            this.generated = generated;
+            this.expanded = expanded;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                PushGenerator generator = generators.get();
+                for (int i = from; i < to; i++) {
+                    children[i] = expand(generator, parents[i], firstIndex + i);
+                }
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandAction(parents, children, from, middle, grain,
+                                firstIndex, pushesPerNode, generators, table, generated, expanded),
+                        new ExpandAction(parents, children, middle, to, grain,
+                                firstIndex, pushesPerNode, generators, table, generated, expanded));
+            }
+        }
+
+        private SearchNode[] expand(final PushGenerator generator, final SearchNode parent, final long index) {
+            if (table.get(parent) != parent) {
+                return NO_CHILDREN; // a cheaper path to this state has been found in the meantime
+            }
+            if (generator.isSolved(parent.getTreasures())) {
+                return SOLVED;
+            }
+            List<SearchNode> successors = generator.expand(parent, index * pushesPerNode);
+            expanded.increment();
+            generated.add(successors.size());
+            SearchNode[] accepted = new SearchNode[successors.size()];
+            int count = 0;
+            for (SearchNode successor : successors) {
+                if (table.offer(successor)) {
+                    accepted[count++] = successor;
+                }
+            }
+            SearchNode[] sorted = Arrays.copyOf(accepted, count);
+            Arrays.sort(sorted, BEST_FIRST);
+            return sorted;
+        }
+    }
+
+    /**
+     * The push generators of a single solve, one for each thread that expands nodes. The generators are discarded
+     * together with this instance when the solve is finished, so the long-living threads of the pool never keep the
+     * board of a previous level.
+     */
+    private static class Generators {
+        private final SolverBoard board;
+        private final Map<Thread, PushGenerator> generatorByThread = new ConcurrentHashMap<>();
+
+        Generators(final SolverBoard board) {
+            this.board = board;
+        }
+
+        PushGenerator get() {
+            return generatorByThread.computeIfAbsent(Thread.currentThread(), thread -> new PushGenerator(board));
+        }
+    }
+}
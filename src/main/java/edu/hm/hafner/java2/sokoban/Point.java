@@ -5,14 +5,48 @@ import javax.annotation.concurrent.Immutable;
 /**
  * A point represents a location in {@code (x,y)} coordinate space,
  * specified in integer precision. Instances of this class are immutable.
+ * <p>
+ * Points within the maximum board size (configured by the system property {@value #CACHE_SIZE_PROPERTY}, default
+ * {@value #DEFAULT_CACHE_SIZE}) are interned: {@link #valueOf(int, int)} and the {@code move} methods return the
+ * same instance for the same coordinates.
+ * </p>
  *
  * @author Julian Wagner
  */
 @Immutable
 public class Point {
+    /** System property that defines the maximum width and height of boards whose points are cached. */
+    public static final String CACHE_SIZE_PROPERTY = "edu.hm.hafner.java2.sokoban.Point.cacheSize";
+    /** Default maximum width and height of boards whose points are cached. */
+    public static final int DEFAULT_CACHE_SIZE = 128;
+
+    private static final int CACHE_SIZE = Math.max(0, Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+    private static final Point[] CACHE = new Point[CACHE_SIZE * CACHE_SIZE];
+
     private final int x;
     private final int y;
-    private final String display;
+
+    /**
+     * Returns a point for the specified coordinates. If the coordinates are within the maximum board size then the
+     * cached instance is returned, otherwise a new instance is created.
+     *
+     * @param x Value for the x Coordination.
+     * @param y Value for the y Coordination.
+     * @return the point
+     * @throws IllegalArgumentException if one of the coordinates is negative
+     */
+    public static Point valueOf(final int x, final int y) {
+        if (x >= 0 && y >= 0 && x < CACHE_SIZE && y < CACHE_SIZE) {
+            int index = y * CACHE_SIZE + x;
+            Point point = CACHE[index];
+            if (point == null) {
+                point = new Point(x, y);
+                CACHE[index] = point; // benign race: all fields are final
+            }
+            return point;
+        }
+        return new Point(x, y);
+    }
 
     /**
      * Create a new instance of Point
@@ -22,18 +56,14 @@ public class Point {
      * @throws IllegalArgumentException
      */
     public Point(final int x, final int y) {
-        display = String.format("(%d, %d)", x, y);
-
         if (x < 0 || y < 0) {
-            throw new IllegalArgumentException(String.format("Point %s is out of bounds!", display));
+            throw new IllegalArgumentException(String.format("Point %s is out of bounds!", format(x, y)));
         }
 
         this.x = x;
         this.y = y;
     }
 
-    //adfjaödfkajödfkajdöfajkdföakjdföakdjf
-
     /**
      * Returns the x Coordination
      *
@@ -57,48 +87,62 @@ public class Point {
      * @return {@code false} if point is null or not equal, {@code true} otherwise
      */
     public boolean isEqualTo(final Point point) {
-        return point != null && point.getX() == x && point.getY() == y;
+        return point == this || point != null && point.getX() == x && point.getY() == y;
     }
 
     /**
-     * Create a new instance of the point right from the current instance.
+     * Returns the point right from the current instance.
      *
      * @return Point
      */
     public Point moveRight() {
-        return new Point(x + 1, y);
+        return valueOf(x + 1, y);
     }
 
     /**
-     * Create a new instance of the point left from the current instance.
+     * Returns the point left from the current instance.
      *
      * @return Point
      */
     public Point moveLeft() {
-        return new Point(x - 1, y);
+        return valueOf(x - 1, y);
     }
 
     /**
-     * Create a new instance of the point above the current instance.
+     * Returns the point above the current instance.
      *
      * @return Point
      */
     public Point moveUp() {
-        return new Point(x, y - 1);
+        return valueOf(x, y - 1);
     }
 
     /**
-     * Create a new instance of the point under the current instance.
+     * Returns the point under the current instance.
      *
      * @return Point
      */
     public Point moveDown() {
-        return new Point(x, y + 1);
+        return valueOf(x, y + 1);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return other instanceof Point && isEqualTo((Point) other);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
     }
 
     @Override
     public String toString() {
-        return display;
+        return format(x, y);
+    }
+
+    private static String format(final int x, final int y) {
+        return "(" + x + ", " + y + ")";
     }
 
 }
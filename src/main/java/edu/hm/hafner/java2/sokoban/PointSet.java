@@ -5,17 +5,53 @@ import java.util.Arrays;
 /**
  * A collection of points that contains no duplicates. More formally, a {@link PointSet} contains no pair of elements
  * {@code p1} and {@code p2} such that {@code p1.isEqualTo(p2)}. The order of the added elements is preserved.
+ * <p>
+ * The membership of a point is stored in a packed bitset that covers a grid of {@code width x height} cells, the
+ * size of the level. So {@link #add(Point)} and {@link #contains(Point)} run in constant time for points inside of
+ * the grid. The grid never grows because of an added point: points outside of the grid are only counted, looking them
+ * up falls back to a linear scan. {@link #remove(Point)} runs in linear time, since the remaining points are shifted
+ * to keep the insertion order of {@link #get(int)}.
+ * </p>
  *
  * @author Julian Wagner
  */
 public class PointSet {
+    private static final int DEFAULT_SIZE = 8;
+    private static final int BITS_PER_WORD = 64;
+
     private Point[] points;
+    private int size;
+
+    private long[] cells;
+    private int width;
+    private int height;
+    /** Number of points outside of the grid. */
+    private int outside;
 
     /**
      * Creates a new instance of PointSet.
      */
     public PointSet() {
-        points = new Point[0];
+        this(DEFAULT_SIZE, DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a new instance of PointSet that is sized for a level of the specified dimension.
+     *
+     * @param width  the width of the level
+     * @param height the height of the level
+     * @throws IllegalArgumentException if one of the dimensions is negative or the grid has more than {@link
+     *                                  Integer#MAX_VALUE} cells
+     */
+    public PointSet(final int width, final int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException(String.format("Size %d x %d must not be negative!", width, height));
+        }
+
+        points = new Point[DEFAULT_SIZE];
+        this.width = Math.max(width, 1);
+        this.height = Math.max(height, 1);
+        cells = createCells(this.width, this.height);
     }
 
     /**
@@ -26,7 +62,12 @@ public class PointSet {
      * @throws NullPointerException
      */
     public PointSet(final PointSet other) {
-        this.points = Arrays.copyOf(other.points, other.points.length);
+        this.points = Arrays.copyOf(other.points, Math.max(other.size, DEFAULT_SIZE));
+        this.size = other.size;
+        this.cells = Arrays.copyOf(other.cells, other.cells.length);
+        this.width = other.width;
+        this.height = other.height;
+        this.outside = other.outside;
     }
 
     /**
@@ -41,13 +82,18 @@ public class PointSet {
             return false;
         }
 
-        points = Arrays.copyOf(points, points.length + 1);
-        points[points.length - 1] = other;
+        if (size == points.length) {
+            points = Arrays.copyOf(points, size * 2);
+        }
+        points[size] = other;
+        size++;
+        setCell(other, true);
         return true;
     }
 
     /**
-     * Removes a point from the field points.
+     * Removes a point from the field points. The points behind the removed point are shifted to keep the insertion
+     * order, so this method runs in linear time.
      *
      * @param point Point to remove from the array
      * @return {@code false} if point is not in points and {@code true} if remove was successful.
@@ -58,16 +104,11 @@ public class PointSet {
             return false;
         }
 
-        Point[] remindPoints = new Point[points.length - 1];
-        int counter = 0;
-
-        for (Point value : points) {
-            if (!value.isEqualTo(point)) {
-                remindPoints[counter] = value;
-                counter++;
-            }
-        }
-        points = remindPoints;
+        int index = indexOf(point);
+        System.arraycopy(points, index + 1, points, index, size - index - 1);
+        size--;
+        points[size] = null;
+        setCell(point, false);
         return true;
     }
 
@@ -83,12 +124,11 @@ public class PointSet {
             throw new IllegalArgumentException("Other point must not be null!");
         }
 
-        for (Point value : points) {
-            if (value.isEqualTo(point)) {
-                return true;
-            }
+        if (!isInGrid(point)) {
+            return outside > 0 && indexOf(point) >= 0;
         }
-        return false;
+        int cell = point.getY() * width + point.getX();
+        return (cells[cell / BITS_PER_WORD] & (1L << cell)) != 0;
     }
 
     /**
@@ -97,7 +137,7 @@ public class PointSet {
      * @return length of the array
      */
     public int size() {
-        return points.length;
+        return size;
     }
 
     /**
@@ -113,8 +153,131 @@ public class PointSet {
         return points[i];
     }
 
+    /**
+     * Removes all points from this set.
+     */
+    void clear() {
+        Arrays.fill(points, 0, size, null);
+        Arrays.fill(cells, 0);
+        size = 0;
+        outside = 0;
+    }
+
+    /**
+     * Replaces the point at the specified index with a point that is not yet part of this set. The position of the
+     * point in the insertion order is retained.
+     *
+     * @param i     the index of the point to replace
+     * @param point the new point
+     */
+    void set(final int i, final Point point) {
+        setCell(points[i], false);
+        points[i] = point;
+        setCell(point, true);
+    }
+
+    /**
+     * Enlarges the grid of this set so that it covers at least the specified dimension. Used by {@link Sokoban} to
+     * size the bitset from the level before the treasures are accessed.
+     *
+     * @param minimumWidth  the minimum width of the grid
+     * @param minimumHeight the minimum height of the grid
+     * @throws IllegalArgumentException if the grid would have more than {@link Integer#MAX_VALUE} cells
+     */
+    void ensureGrid(final int minimumWidth, final int minimumHeight) {
+        if (minimumWidth <= width && minimumHeight <= height) {
+            return;
+        }
+
+        int newWidth = Math.max(minimumWidth, width);
+        int newHeight = Math.max(minimumHeight, height);
+        cells = createCells(newWidth, newHeight);
+        width = newWidth;
+        height = newHeight;
+        outside = 0;
+        for (int i = 0; i < size; i++) {
+            setCell(points[i], true);
+        }
+    }
+
+    private int indexOf(final Point point) {
+        for (int i = 0; i < size; i++) {
+            if (points[i].isEqualTo(point)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isInGrid(final Point point) {
+        return point.getX() < width && point.getY() < height;
+    }
+
+    private void setCell(final Point point, final boolean value) {
+        if (!isInGrid(point)) {
+            outside += value ? 1 : -1;
+            return;
+        }
+        int cell = point.getY() * width + point.getX();
+        if (value) {
+            cells[cell / BITS_PER_WORD] |= 1L << cell;
+        }
+        else {
+            cells[cell / BITS_PER_WORD] &= ~(1L << cell);
+        }
+    }
+
+    private static long[] createCells(final int width, final int height) {
+        long cells = (long) width * height;
+        if (cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Grid %d x %d is too large!", width, height));
+        }
+        return new long[(int) ((cells + BITS_PER_WORD - 1) / BITS_PER_WORD)];
+    }
+
+    /**
+     * Compares this set with the specified object. Two sets are equal if they contain the same points, the order of
+     * the points is not relevant.
+     *
+     * @param other the object to compare with
+     * @return {@code true} if the other object is a {@link PointSet} with the same points
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PointSet)) {
+            return false;
+        }
+        PointSet set = (PointSet) other;
+        if (size != set.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!set.contains(points[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code that is independent of the order of the points: the sum of the hash codes of all points.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < size; i++) {
+            hash += points[i].hashCode();
+        }
+        return hash;
+    }
+
     @Override
     public String toString() {
-        return Arrays.toString(points);
+        return Arrays.toString(Arrays.copyOf(points, size));
     }
 }
@@ -0,0 +1,325 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the successors of a {@link SearchNode}: computes the region the player can reach without pushing,
+ * creates a child node for each legal push and evaluates the lower bound of the remaining pushes. Pushes onto dead
+ * squares and pushes that create a deadlock (see {@link DeadlockDetector}) are skipped. The scratch
+ * buffers are reused between calls, so an instance must not be shared between threads.
+ *
+ * @author Julian Wagner
+ */
+final class PushGenerator {
+    private static final int INFINITE = MinimumCostMatching.INFINITE;
+
+    private final SolverBoard board;
+    private final int[] deltas;
+    private final ZobristKeys keys;
+    private final DeadlockDetector deadlockDetector;
+
+    private final boolean[] occupied;
+    private final int[] visited;
+    private final int[] queue;
+    private final int[] via;
+    private int generation;
+
+    private final int[] pushes;
+
+    private final MinimumCostMatching matching;
+
+    /**
+     * Creates a new generator for the specified board.
+     *
+     * @param board the board
+     */
+    PushGenerator(final SolverBoard board) {
+        this.board = board;
+        deltas = board.getDeltas();
+        keys = board.getKeys();
+        deadlockDetector = new DeadlockDetector(board);
+
+        int size = board.size();
+        occupied = new boolean[size];
+        visited = new int[size];
+        queue = new int[size];
+        via = new int[size];
+
+        int treasureCount = board.getTargets().length;
+        pushes = new int[treasureCount * deltas.length * 2];
+
+        matching = new MinimumCostMatching(treasureCount);
+    }
+
+    /**
+     * Creates the root node for the initial state of the board.
+     *
+     * @return the root node, or {@code null} if the initial state cannot be solved
+     */
+    SearchNode createRoot() {
+        int[] treasures = board.getTreasures();
+        int estimate = estimate(treasures);
+        if (estimate >= INFINITE || deadlockDetector.isDeadlocked(treasures, board.getPlayer())) {
+            return null;
+        }
+        int player = normalize(board.getPlayer(), treasures);
+        long treasureKey = keys.hashTreasures(treasures);
+        return new SearchNode(treasures, player, treasureKey, treasureKey ^ keys.getPlayerKey(player),
+                null, 0, estimate, -1, -1, 0);
+    }
+
+    /**
+     * Creates the child nodes for all legal pushes of the specified node. Pushes that lead to a state that cannot
+     * be solved anymore are skipped.
+     *
+     * @param node the node to expand
+     * @return the child nodes
+     */
+    List<SearchNode> expand(final SearchNode node) {
+        return expand(node, 0);
+    }
+
+    /**
+     * Creates the child nodes for all legal pushes of the specified node. Pushes that lead to a state that cannot
+     * be solved anymore are skipped. The children are ranked in the order of the pushes, starting with the
+     * specified rank.
+     *
+     * @param node      the node to expand
+     * @param firstRank the rank of the first push
+     * @return the child nodes
+     */
+    List<SearchNode> expand(final SearchNode node, final long firstRank) {
+        int[] treasures = node.getTreasures();
+        int count = collectPushes(node.getPlayer(), treasures);
+
+        List<SearchNode> children = new ArrayList<>(count);
+        if (count == 0 || estimate(treasures) >= INFINITE) {
+            return children;
+        }
+        matching.save();
+        for (int i = 0; i < count; i++) {
+            int index = pushes[i * 2];
+            int direction = pushes[i * 2 + 1];
+            int from = treasures[index];
+            int[] moved = push(treasures, index, deltas[direction]);
+            int estimate = estimate(index, from + deltas[direction]);
+            matching.restore();
+            setCosts(index, from);
+            if (estimate < INFINITE && !deadlockDetector.isDeadlocked(moved, from, from + deltas[direction])) {
+                int player = normalize(from, moved);
+                long treasureKey = node.getTreasureKey()
+                        ^ keys.getTreasureKey(from) ^ keys.getTreasureKey(from + deltas[direction]);
+                children.add(new SearchNode(moved, player, treasureKey, treasureKey ^ keys.getPlayerKey(player),
+                        node, node.getPushes() + 1, estimate, from, direction, firstRank + i));
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Returns the detector that is used to skip pushes that create a deadlock.
+     *
+     * @return the deadlock detector
+     */
+    DeadlockDetector getDeadlockDetector() {
+        return deadlockDetector;
+    }
+
+    /**
+     * Returns whether all treasures of the specified state are placed on targets.
+     *
+     * @param treasures the treasure cells
+     * @return {@code true} if the state is a solution
+     */
+    boolean isSolved(final int[] treasures) {
+        for (int treasure : treasures) {
+            if (!board.isTarget(treasure)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the path from the root node to the specified node into the moves of the player.
+     *
+     * @param goal the last node of the path
+     * @return the moves of the player
+     */
+    List<Orientation> toMoves(final SearchNode goal) {
+        List<SearchNode> path = new ArrayList<>();
+        for (SearchNode node = goal; node.getParent() != null; node = node.getParent()) {
+            path.add(node);
+        }
+
+        Orientation[] orientations = Orientation.values();
+        int[] treasures = board.getTreasures();
+        int player = board.getPlayer();
+        List<Orientation> moves = new ArrayList<>();
+        for (int i = path.size() - 1; i >= 0; i--) {
+            SearchNode node = path.get(i);
+            int treasure = node.getPushedTreasure();
+            int delta = deltas[node.getDirection()];
+            appendWalk(player, treasure - delta, treasures, moves);
+            moves.add(orientations[node.getDirection()]);
+
+            for (int j = 0; j < treasures.length; j++) {
+                if (treasures[j] == treasure) {
+                    treasures[j] = treasure + delta;
+                }
+            }
+            player = treasure;
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the top-left cell of the region that the player can reach without pushing a treasure.
+     *
+     * @param player    the cell of the player
+     * @param treasures the treasure cells
+     * @return the normalized player cell
+     */
+    int normalize(final int player, final int[] treasures) {
+        occupy(treasures, true);
+        int count = fill(player);
+        occupy(treasures, false);
+
+        int topLeft = player;
+        for (int i = 0; i < count; i++) {
+            topLeft = Math.min(topLeft, queue[i]);
+        }
+        return topLeft;
+    }
+
+    /**
+     * Returns a lower bound of the number of pushes that are required to solve the specified state: the minimum cost
+     * of a perfect matching between the treasures and the targets, using the push distances as costs.
+     *
+     * @param treasures the treasure cells
+     * @return the lower bound, a value of at least {@link #INFINITE} if the state cannot be solved
+     */
+    int estimate(final int[] treasures) {
+        for (int i = 0; i < treasures.length; i++) {
+            if (!setCosts(i, treasures[i])) {
+                return INFINITE;
+            }
+        }
+        return matching.solve();
+    }
+
+    /**
+     * Returns the lower bound for the state of the last call of {@link #estimate(int[])} where the treasure with the
+     * specified index has been moved to the specified cell. The matching is updated incrementally.
+     */
+    private int estimate(final int index, final int cell) {
+        if (!setCosts(index, cell)) {
+            return INFINITE;
+        }
+        return matching.update(index);
+    }
+
+    /**
+     * Sets the costs of the specified row of the matching to the push distances of the specified cell.
+     *
+     * @return {@code true} if at least one target can be reached from the cell
+     */
+    private boolean setCosts(final int row, final int cell) {
+        boolean isReachable = false;
+        for (int target = 0; target < matching.size(); target++) {
+            int distance = board.getDistance(target, cell);
+            matching.setCost(row, target, distance);
+            isReachable |= distance != SolverBoard.UNREACHABLE;
+        }
+        return isReachable;
+    }
+
+    private int collectPushes(final int player, final int[] treasures) {
+        occupy(treasures, true);
+        fill(player);
+        int count = 0;
+        for (int i = 0; i < treasures.length; i++) {
+            int treasure = treasures[i];
+            for (int direction = 0; direction < deltas.length; direction++) {
+                int delta = deltas[direction];
+                int target = treasure + delta;
+                if (visited[treasure - delta] == generation && board.isFloor(target) && !occupied[target]
+                        && !board.isDead(target)) {
+                    pushes[count * 2] = i;
+                    pushes[count * 2 + 1] = direction;
+                    count++;
+                }
+            }
+        }
+        occupy(treasures, false);
+        return count;
+    }
+
+    private int[] push(final int[] treasures, final int index, final int delta) {
+        int[] moved = treasures.clone();
+        int cell = treasures[index] + delta;
+        int position = index;
+        if (delta > 0) {
+            while (position + 1 < moved.length && moved[position + 1] < cell) {
+                moved[position] = moved[position + 1];
+                position++;
+            }
+        }
+        else {
+            while (position > 0 && moved[position - 1] > cell) {
+                moved[position] = moved[position - 1];
+                position--;
+            }
+        }
+        moved[position] = cell;
+        return moved;
+    }
+
+    private void occupy(final int[] treasures, final boolean value) {
+        for (int treasure : treasures) {
+            occupied[treasure] = value;
+        }
+    }
+
+    /**
+     * Marks all cells that are reachable from the start cell with the current generation. The reached cells are
+     * stored at the beginning of the queue.
+     *
+     * @return the number of reached cells
+     */
+    private int fill(final int start) {
+        generation++;
+        int head = 0;
+        int tail = 0;
+        visited[start] = generation;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int direction = 0; direction < deltas.length; direction++) {
+                int next = cell + deltas[direction];
+                if (visited[next] != generation && board.isFloor(next) && !occupied[next]) {
+                    visited[next] = generation;
+                    via[next] = direction;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return tail;
+    }
+
+    private void appendWalk(final int from, final int to, final int[] treasures, final List<Orientation> moves) {
+        occupy(treasures, true);
+        fill(from);
+        occupy(treasures, false);
+
+        Orientation[] orientations = Orientation.values();
+        List<Orientation> walk = new ArrayList<>();
+        for (int cell = to; cell != from; cell -= deltas[via[cell]]) {
+            walk.add(orientations[via[cell]]);
+        }
+        for (int i = walk.size() - 1; i >= 0; i--) {
+            moves.add(walk.get(i));
+        }
+    }
+}
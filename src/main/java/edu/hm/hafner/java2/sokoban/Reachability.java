@@ -0,0 +1,208 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.Arrays;
+
+/**
+ * The region of a {@link Sokoban} level that the player can reach without pushing a treasure, together with all
+ * pushes that are possible from that region. Fields are identified by their cell index {@code y * width + x}.
+ *
+ * <p>
+ * The region is computed by a flood fill over the padded board of the level, see {@link Sokoban#setLevel(Field[][])}:
+ * the neighbors of a field are reached by adding a fixed delta per orientation to its index, and the border is
+ * blocked, so the fill needs neither bounds checks nor divisions. Indices are translated to cell indices only when
+ * they are returned. The queue, the visited marks and the list of pushes are allocated once per level and reused by
+ * every computation: a field is marked with the number of the current computation, so the marks never need to be
+ * cleared. Hence, a computation does not allocate any objects. The results are valid until the next computation, see
+ * {@link Sokoban#computeReachability()}.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public final class Reachability {
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+    private final Sokoban sokoban;
+    private final int[] deltas = new int[ORIENTATIONS.length];
+    private int width;
+    private int stride;
+
+    private int[] visited = new int[0];
+    private int[] queue = new int[0];
+    private int generation;
+    private int regionSize;
+    private int topLeft = -1;
+
+    private int[] pushes = new int[0];
+    private int pushCount;
+
+    /**
+     * Creates a new reachability engine for the specified level.
+     *
+     * @param sokoban the level
+     */
+    Reachability(final Sokoban sokoban) {
+        this.sokoban = sokoban;
+    }
+
+    /**
+     * Computes the region that the player can reach and the possible pushes for the current position of the level.
+     *
+     * @return this instance
+     */
+    Reachability compute() {
+        int height = sokoban.getHeight();
+        width = sokoban.getWidth();
+        stride = sokoban.getStride();
+        int cells = stride * (height + 2);
+        if (visited.length != cells) {
+            visited = new int[cells];
+            queue = new int[cells];
+            generation = 0;
+        }
+        for (Orientation orientation : ORIENTATIONS) {
+            deltas[orientation.ordinal()] = orientation.getDeltaY() * stride + orientation.getDeltaX();
+        }
+        int maximumPushes = sokoban.getTreasures().size() * ORIENTATIONS.length;
+        if (pushes.length < maximumPushes) {
+            pushes = new int[maximumPushes];
+        }
+
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            generation = 0;
+        }
+        generation++;
+        regionSize = 0;
+        pushCount = 0;
+        topLeft = -1;
+
+        Point player = sokoban.getPlayer();
+        if (player.getX() >= width || player.getY() >= height) {
+            return this;
+        }
+        int start = sokoban.toIndex(player.getX(), player.getY());
+        if (!sokoban.isFree(start)) {
+            return this;
+        }
+        visited[start] = generation;
+        queue[regionSize++] = start;
+        topLeft = start;
+        for (int head = 0; head < regionSize; head++) {
+            int cell = queue[head];
+            topLeft = Math.min(topLeft, cell);
+            for (int direction = 0; direction < deltas.length; direction++) {
+                int delta = deltas[direction];
+                int next = cell + delta;
+                if (sokoban.isFree(next)) {
+                    if (visited[next] != generation) {
+                        visited[next] = generation;
+                        queue[regionSize++] = next;
+                    }
+                }
+                else if (sokoban.hasTreasure(next) && sokoban.isFree(next + delta)) {
+                    pushes[pushCount++] = next * ORIENTATIONS.length + direction;
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of fields the player can reach.
+     *
+     * @return the size of the region, 0 if the player is not on a free floor field
+     */
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    /**
+     * Returns the cell index of a field the player can reach.
+     *
+     * @param index the index of the field in the region, in the order the fields have been reached
+     * @return the cell index of the field
+     * @throws IllegalArgumentException if the index is not within the region
+     */
+    public int getRegionCell(final int index) {
+        if (index < 0 || index >= regionSize) {
+            throw new IllegalArgumentException(String.format("Index has to be between %d and %d", 0, regionSize));
+        }
+        return toCell(queue[index]);
+    }
+
+    /**
+     * Returns whether the player can reach the specified coordinates.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return {@code true} if the field is part of the region
+     */
+    public boolean isReachable(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= sokoban.getHeight()) {
+            return false;
+        }
+        return visited[(y + 1) * stride + x + 1] == generation;
+    }
+
+    /**
+     * Returns the canonical representative of the region: the cell index of the top-left field, i.e. the field with
+     * the smallest cell index. Two positions with the same treasures and the same top-left field differ only by
+     * moves that do not push a treasure.
+     *
+     * @return the cell index of the top-left field, -1 if the region is empty
+     */
+    public int getTopLeftCell() {
+        return topLeft < 0 ? -1 : toCell(topLeft);
+    }
+
+    /**
+     * Returns the index of the top-left field in the padded board, see {@link #getTopLeftCell()}.
+     *
+     * @return the index of the top-left field, -1 if the region is empty
+     */
+    int getTopLeftIndex() {
+        return topLeft;
+    }
+
+    /**
+     * Returns the number of pushes that are possible from the region.
+     *
+     * @return the number of pushes
+     */
+    public int getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * Returns the cell index of the treasure that is moved by the specified push.
+     *
+     * @param index the index of the push
+     * @return the cell index of the treasure
+     * @throws IllegalArgumentException if the index is not valid
+     */
+    public int getPushCell(final int index) {
+        return toCell(getPush(index) / ORIENTATIONS.length);
+    }
+
+    /**
+     * Returns the direction of the specified push.
+     *
+     * @param index the index of the push
+     * @return the direction
+     * @throws IllegalArgumentException if the index is not valid
+     */
+    public Orientation getPushDirection(final int index) {
+        return ORIENTATIONS[getPush(index) % ORIENTATIONS.length];
+    }
+
+    private int toCell(final int index) {
+        return (index / stride - 1) * width + index % stride - 1;
+    }
+
+    private int getPush(final int index) {
+        if (index < 0 || index >= pushCount) {
+            throw new IllegalArgumentException(String.format("Index has to be between %d and %d", 0, pushCount));
+        }
+        return pushes[index];
+    }
+}
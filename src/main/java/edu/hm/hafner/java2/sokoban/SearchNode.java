@@ -0,0 +1,125 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.Arrays;
+
+/**
+ * A node in the search space of the Sokoban solvers. The state of a node consists of the sorted treasure cells and
+ * the normalized player cell, i.e. the top-left cell of the region the player can reach without pushing a treasure.
+ * Two nodes are equal if their states are equal, the remaining properties describe how the state has been reached.
+ * The hash code is derived from the Zobrist key of the state.
+ *
+ * @author Julian Wagner
+ */
+final class SearchNode {
+    private final int[] treasures;
+    private final int player;
+    private final long treasureKey;
+    private final long key;
+
+    private final SearchNode parent;
+    private final int pushes;
+    private final int estimate;
+    private final int pushedTreasure;
+    private final int direction;
+    private final long rank;
+
+    /**
+     * Creates a new search node.
+     *
+     * @param treasures      the sorted treasure cells
+     * @param player         the normalized player cell
+     * @param treasureKey    the Zobrist key of the treasure cells
+     * @param key            the Zobrist key of the whole state, i.e. the treasures and the normalized player
+     * @param parent         the node this node has been created from, {@code null} for the root node
+     * @param pushes         the number of pushes from the root node
+     * @param estimate       the lower bound of pushes to a solution
+     * @param pushedTreasure the cell of the treasure that has been pushed to create this node
+     * @param direction      the ordinal of the push direction
+     * @param rank           the order in which the node has been generated, used to break ties deterministically
+     */
+    SearchNode(final int[] treasures, final int player, final long treasureKey, final long key,
+            final SearchNode parent, final int pushes, final int estimate, final int pushedTreasure,
+            final int direction, final long rank) {
+        this.treasures = treasures;
+        this.player = player;
+        this.treasureKey = treasureKey;
+        this.key = key;
+        this.parent = parent;
+        this.pushes = pushes;
+        this.estimate = estimate;
+        this.pushedTreasure = pushedTreasure;
+        this.direction = direction;
+        this.rank = rank;
+    }
+
+    int[] getTreasures() {
+        return treasures;
+    }
+
+    int getPlayer() {
+        return player;
+    }
+
+    long getTreasureKey() {
+        return treasureKey;
+    }
+
+    /**
+     * Returns the Zobrist key of the state of this node.
+     *
+     * @return the key
+     */
+    long getKey() {
+        return key;
+    }
+
+    SearchNode getParent() {
+        return parent;
+    }
+
+    int getPushes() {
+        return pushes;
+    }
+
+    int getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Returns the total estimated number of pushes of a solution that uses this node.
+     *
+     * @return the sum of the pushes and the estimate
+     */
+    int getCost() {
+        return pushes + estimate;
+    }
+
+    int getPushedTreasure() {
+        return pushedTreasure;
+    }
+
+    int getDirection() {
+        return direction;
+    }
+
+    long getRank() {
+        return rank;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SearchNode)) {
+            return false;
+        }
+        SearchNode node = (SearchNode) other;
+        return key == node.key && player == node.player && Arrays.equals(treasures, node.treasures);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (key ^ key >>> 32);
+    }
+}
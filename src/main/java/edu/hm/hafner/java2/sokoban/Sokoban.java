@@ -1,18 +1,85 @@
 package edu.hm.hafner.java2.sokoban;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents the game field of Sokoban.
  *
  * @author Julian Wagner
  */
 public class Sokoban {
+    private static final AtomicInteger LEVEL_REVISIONS = new AtomicInteger();
+
+    private static final byte BLOCKED = 1;
+    private static final byte TARGET = 2;
+    private static final int BITS_PER_WORD = 64;
+    private static final Field[] FIELDS = Field.values();
+    private static final byte BORDER = (byte) Field.BACKGROUND.ordinal();
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+
     private final PointSet treasures = new PointSet();
-    private Field[][] level;
+    private byte[] board = new byte[0];
+    private int width;
+    private int height;
+    private int stride;
+    /** Difference of the index of a neighbor in the padded board for each orientation. */
+    private final int[] deltas = new int[ORIENTATIONS.length];
+    private int levelRevision;
     private Point player;
 
+    /**
+     * Flags of each field of the padded board: {@link #BLOCKED} for walls and background (including the border),
+     * {@link #TARGET}.
+     */
+    private byte[] occupancy = new byte[0];
+    /** Index of the treasure at each field of the padded board, incremented by one. 0 marks a field without treasure. */
+    private int[] treasureIndex = new int[0];
+    private int treasuresOnTargets;
+
+    /** Zobrist keys of each field of the padded board. */
+    private ZobristKeys zobristKeys;
+    /** XOR of the Zobrist keys of all treasures. */
+    private long treasureHash;
+    private long normalizedHash;
+    private boolean isNormalizedHashValid;
+
+    private final Reachability reachability = new Reachability(this);
+    /** Separate instance for {@link #getNormalizedHash()}, so the hash does not overwrite a handed out result. */
+    private final Reachability hashReachability = new Reachability(this);
+
+    /** Bitset of the floor fields in row-major order from which a treasure can't be pushed to any target. */
+    private long[] deadSquares = new long[0];
+    private int deadSquaresRevision;
+
+    private DistanceTable distanceTable;
+    private int distanceTableRevision;
+
+    private MinimumCostMatching assignment;
+    private int assignmentRevision;
+    private boolean isAssignmentValid;
+    private boolean[] isTreasureMoved = new boolean[0];
+
+    private DeadlockDetector deadlockDetector;
+    private SolverBoard deadlockBoard;
+    private int deadlockRevision;
+    /** Padded index of the treasure that has been pushed by the last move, -1 if the last change was not a push. */
+    private int lastPush = -1;
+    private int[] treasureCells = new int[0];
+
+    private final MoveJournal journal = new MoveJournal();
+    private int[] checkpoint = new int[0];
+
     /**
      * Sets the level. The level consists of an array of lines. Each line is represented by an array of fields.
      *
+     * <p>
+     * Internally the fields are stored in a single flat array of bytes (the ordinals of the fields) in row-major
+     * order. The array is surrounded by a border of {@link Field#BACKGROUND} fields, so the neighbors of every field
+     * can be looked up without bounds checks. The array of lines is used for import and export only, see {@link
+     * #getLevel()}.
+     * </p>
+     *
      * @param level the level
      * @throws IllegalArgumentException
      */
@@ -20,10 +87,14 @@ public class Sokoban {
         if (level == null) {
             throw new IllegalArgumentException("Level must not be null!");
         }
+        if (level.length > 0 && level[0] == null) {
+            throw new IllegalArgumentException("Line must not be null!");
+        }
 
-        this.level = new Field[level.length][level[0].length];
         int lengthOfLevel = level[0].length;
-
+        int lineStride = lengthOfLevel + 2;
+        byte[] fields = new byte[lineStride * (level.length + 2)];
+        Arrays.fill(fields, BORDER);
         for (int i = 0; i < level.length; i++) {
             if (level[i] == null) {
                 throw new IllegalArgumentException("Line must not be null!");
@@ -31,13 +102,53 @@ public class Sokoban {
             if (level[i].length != lengthOfLevel) {
                 throw new IllegalArgumentException("Length of the lines are not equal!");
             }
+            int offset = (i + 1) * lineStride + 1;
             for (int j = 0; j < lengthOfLevel; j++) {
                 if (level[i][j] == null) {
                     throw new IllegalArgumentException("Field value must not be null!");
                 }
-                this.level[i][j] = level[i][j];
+                fields[offset + j] = (byte) level[i][j].ordinal();
+            }
+        }
+        board = fields;
+        width = lengthOfLevel;
+        height = level.length;
+        stride = lineStride;
+        treasures.ensureGrid(getWidth(), getHeight());
+        levelRevision = LEVEL_REVISIONS.incrementAndGet();
+
+        createOccupancy();
+        journal.clear();
+    }
+
+    /**
+     * Returns a copy of the level as array of lines, see {@link #setLevel(Field[][])}.
+     *
+     * @return the level
+     * @throws IllegalStateException if the level has not been set
+     */
+    public Field[][] getLevel() {
+        if (!hasLevel()) {
+            throw new IllegalStateException("Level must be set!");
+        }
+
+        Field[][] level = new Field[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                level[y][x] = getField(x, y);
             }
         }
+        return level;
+    }
+
+    /**
+     * Returns the revision of the level layout. Each call of {@link #setLevel(Field[][])} assigns a new revision that
+     * is unique among all instances. So caches that depend on the level layout only can use the revision as key.
+     *
+     * @return the revision of the level, or 0 if no level has been set yet
+     */
+    int getLevelRevision() {
+        return levelRevision;
     }
 
     /**
@@ -52,7 +163,10 @@ public class Sokoban {
             throw new IllegalArgumentException("Treasure must not be null!");
         }
 
-        treasures.add(treasure);
+        if (treasures.add(treasure)) {
+            indexTreasure(treasures.size() - 1, treasure);
+            journal.clear();
+        }
     }
 
     /**
@@ -66,20 +180,86 @@ public class Sokoban {
         if (treasure == null) {
             throw new IllegalArgumentException("Treasure must not be null!");
         }
-        treasures.remove(treasure);
+        if (treasures.contains(treasure)) {
+            int index = findTreasure(treasure);
+            treasures.remove(treasure);
+            unindexTreasure(index, treasure);
+            journal.clear();
+        }
     }
 
     /**
-     * Validates this level.
+     * Validates this level. After the first successful validation of a level the dead squares are computed, see
+     * {@link #isDeadSquare(Point)}.
      *
      * @throws IllegalArgumentException if the level is not valid
      */
     public void validate() {
-        if (level == null) {
+        if (!hasLevel()) {
             throw new IllegalArgumentException("Level must not be null!");
         }
         checkPlayer();
         checkTreasure();
+        ensureDeadSquares();
+    }
+
+    /**
+     * Returns whether the specified position is a dead square: a floor field from which a treasure can't be pushed
+     * to any target, even if there were no other treasures. Pushing a treasure onto a dead square makes the level
+     * unsolvable. The dead squares depend on the level layout only, they are computed once per level, so this
+     * lookup runs in constant time.
+     *
+     * @param point the position
+     * @return {@code true} if the position is a dead square, {@code false} for all other fields
+     * @throws IllegalArgumentException if the point is {@code null} or out of bounds
+     * @throws IllegalStateException if the level has not been set
+     */
+    public boolean isDeadSquare(final Point point) {
+        if (!hasLevel()) {
+            throw new IllegalStateException("Level must be set!");
+        }
+        getField(point);
+
+        return isDeadSquare(point.getX(), point.getY());
+    }
+
+    /**
+     * Returns whether the specified coordinates are a dead square, see {@link #isDeadSquare(Point)}. In contrast to
+     * that method no bounds checks are performed.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return {@code true} if the position is a dead square
+     */
+    boolean isDeadSquare(final int x, final int y) {
+        ensureDeadSquares();
+
+        int cell = toCell(x, y);
+        return (deadSquares[cell / BITS_PER_WORD] & 1L << cell) != 0;
+    }
+
+    /**
+     * Computes the dead squares if the level has been changed since the last computation. A floor field is a dead
+     * square if no target can be reached from it in the {@link #getDistanceTable() distance table}.
+     */
+    private void ensureDeadSquares() {
+        if (deadSquaresRevision == levelRevision) {
+            return;
+        }
+
+        DistanceTable table = getDistanceTable();
+        int cells = width * height;
+        deadSquares = new long[(cells + BITS_PER_WORD - 1) / BITS_PER_WORD];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = toCell(x, y);
+                if (occupancy[toIndex(x, y)] != BLOCKED
+                        && table.getMinimumDistance(cell) == DistanceTable.UNREACHABLE) {
+                    deadSquares[cell / BITS_PER_WORD] |= 1L << cell;
+                }
+            }
+        }
+        deadSquaresRevision = levelRevision;
     }
 
     /**
@@ -88,14 +268,382 @@ public class Sokoban {
      * @return {@code true} if this level has been solved, {@code false} otherwise
      */
     public boolean isSolved() {
-        for (int i = 0; i < treasures.size(); i++) {
-            if (getField(treasures.get(i)) != Field.TARGET) {
-                return false;
-            }
+        return treasuresOnTargets == treasures.size();
+    }
+
+    /**
+     * Moves the player one field in the specified direction. If there is a treasure on that field, then the treasure
+     * is pushed to the next field. The move is blocked if the player would enter a wall or the background or if the
+     * treasure cannot be pushed since a wall, the background or another treasure is in the way.
+     *
+     * <p>
+     * Each move that has not been blocked is recorded in the move journal, see {@link #undo()}, {@link #redo()} and
+     * {@link #jumpTo(int)}. Changing the level, the player or the treasures directly clears the journal.
+     * </p>
+     *
+     * @param orientation the direction to move to
+     * @return the result of the move
+     * @throws IllegalArgumentException if the orientation is {@code null}
+     * @throws IllegalStateException if the level or the player has not been set
+     */
+    public MoveResult move(final Orientation orientation) {
+        if (orientation == null) {
+            throw new IllegalArgumentException("Orientation must not be null!");
+        }
+        ensureMovable();
+        if (!isInside(player.getX(), player.getY())) {
+            return MoveResult.BLOCKED;
+        }
+
+        if (journal.isCheckpointRequired()) {
+            addCheckpoint();
+        }
+        MoveResult result = step(orientation);
+        if (result.hasMoved()) {
+            journal.record(orientation, result == MoveResult.PUSHED);
+        }
+        return result;
+    }
+
+    /**
+     * Takes back the last move of the move journal.
+     *
+     * @return {@code true} if a move has been taken back, {@code false} if there is no move to undo
+     */
+    public boolean undo() {
+        if (!journal.canUndo()) {
+            return false;
+        }
+
+        int move = journal.undo();
+        Orientation orientation = MoveJournal.getOrientation(move);
+        int x = player.getX();
+        int y = player.getY();
+        if (MoveJournal.isPush(move)) {
+            int from = toIndex(x, y) + deltas[orientation.ordinal()];
+            moveTreasure(treasureIndex[from] - 1, from, x, y);
         }
+        player = Point.valueOf(x - orientation.getDeltaX(), y - orientation.getDeltaY());
+        lastPush = -1;
+        return true;
+    }
+
+    /**
+     * Makes the last move again that has been taken back by {@link #undo()}.
+     *
+     * @return {@code true} if a move has been made, {@code false} if there is no move to redo
+     */
+    public boolean redo() {
+        if (!journal.canRedo()) {
+            return false;
+        }
+
+        step(MoveJournal.getOrientation(journal.redo()));
         return true;
     }
 
+    /**
+     * Jumps to the specified position in the move journal. Position 0 is the state before the first recorded move.
+     * Depending on the distance, the moves are undone or redone step by step or replayed from the closest
+     * checkpoint.
+     *
+     * @param position the position to jump to
+     * @throws IllegalArgumentException if the position is not within the recorded moves
+     */
+    public void jumpTo(final int position) {
+        if (position < 0 || position > journal.size()) {
+            throw new IllegalArgumentException(String.format("Position %d has to be between %d and %d",
+                    position, 0, journal.size()));
+        }
+
+        int current = journal.getPosition();
+        int checkpointPosition = journal.getCheckpointPosition(position);
+        if (position < current && current - position <= position - checkpointPosition) {
+            while (journal.getPosition() > position) {
+                undo();
+            }
+            return;
+        }
+        if (position < current || current < checkpointPosition) {
+            restoreCheckpoint(checkpointPosition);
+        }
+        while (journal.getPosition() < position) {
+            redo();
+        }
+    }
+
+    /**
+     * Returns the position in the move journal, i.e. the number of moves that have been made and not taken back.
+     *
+     * @return the number of moves
+     */
+    public int getMoveCount() {
+        return journal.getPosition();
+    }
+
+    /**
+     * Returns the number of moves that are recorded in the move journal, including the moves that have been taken
+     * back.
+     *
+     * @return the number of recorded moves
+     */
+    public int getRecordedMoveCount() {
+        return journal.size();
+    }
+
+    /**
+     * Returns the 64-bit Zobrist hash of the current position, i.e. of the treasure positions and the player
+     * position. The hash is updated incrementally on every move, so this method runs in constant time. Two positions
+     * of the same level with the same hash are equal with a very high probability.
+     *
+     * @return the hash of the position
+     * @throws IllegalStateException if the level or the player has not been set
+     */
+    public long getHash() {
+        ensureMovable();
+
+        return treasureHash ^ getPlayerKey(player.getX(), player.getY());
+    }
+
+    /**
+     * Returns the 64-bit Zobrist hash of the current position, where the player position is replaced by the region
+     * the player can reach without pushing a treasure. So all positions that differ only by moves that do not push
+     * a treasure get the same hash. The region is represented by its top-left field. The hash is cached until a
+     * treasure is moved or the player is set to another position, so moves that do not push a treasure keep the
+     * cached value.
+     *
+     * @return the normalized hash of the position
+     * @throws IllegalStateException if the level or the player has not been set
+     */
+    public long getNormalizedHash() {
+        ensureMovable();
+
+        if (!isNormalizedHashValid) {
+            int topLeft = hashReachability.compute().getTopLeftIndex();
+            normalizedHash = treasureHash ^ (topLeft < 0 ? 0 : zobristKeys.getPlayerKey(topLeft));
+            isNormalizedHashValid = true;
+        }
+        return normalizedHash;
+    }
+
+    private long getPlayerKey(final int x, final int y) {
+        return isInside(x, y) ? zobristKeys.getPlayerKey(toIndex(x, y)) : 0;
+    }
+
+    /**
+     * Returns the push distances from every field to every target of this level. The table is computed on the first
+     * call after the level has been set and is reused until the level is replaced by {@link #setLevel(Field[][])}.
+     *
+     * @return the distance table of the level
+     * @throws IllegalStateException if the level has not been set
+     */
+    public DistanceTable getDistanceTable() {
+        if (!hasLevel()) {
+            throw new IllegalStateException("Level must be set!");
+        }
+        if (distanceTableRevision != levelRevision) {
+            distanceTable = new DistanceTable(this);
+            distanceTableRevision = levelRevision;
+        }
+        return distanceTable;
+    }
+
+    /**
+     * Returns a lower bound of the number of pushes that are required to solve the current position: the minimum cost
+     * of a perfect matching between the treasures and the targets, where the cost of a pair is the push distance of
+     * the {@link #getDistanceTable() distance table}. The matching is computed with the Hungarian algorithm. After
+     * treasures have been pushed, only the rows of the moved treasures are updated, so a bound after a single push
+     * takes {@code O(n^2)} instead of {@code O(n^3)}.
+     *
+     * @return the lower bound, or {@link DistanceTable#UNREACHABLE} if there is no assignment of the treasures to
+     *         the targets
+     * @throws IllegalStateException if the level has not been set or the numbers of treasures and targets differ
+     */
+    public int estimateRemainingPushes() {
+        DistanceTable table = getDistanceTable();
+        int size = treasures.size();
+        if (table.getTargetCount() != size) {
+            throw new IllegalStateException("Number of treasures and targets must be equal!");
+        }
+
+        int total;
+        if (isAssignmentValid && assignmentRevision == levelRevision && assignment.size() == size) {
+            total = updateAssignment(table);
+        }
+        else {
+            if (assignment == null || assignment.size() != size) {
+                assignment = new MinimumCostMatching(size);
+                isTreasureMoved = new boolean[size];
+            }
+            for (int i = 0; i < size; i++) {
+                setAssignmentCosts(table, i);
+            }
+            total = assignment.solve();
+            Arrays.fill(isTreasureMoved, false);
+            assignmentRevision = levelRevision;
+            isAssignmentValid = true;
+        }
+        return total >= MinimumCostMatching.INFINITE ? DistanceTable.UNREACHABLE : total;
+    }
+
+    private int updateAssignment(final DistanceTable table) {
+        for (int i = 0; i < isTreasureMoved.length; i++) {
+            if (isTreasureMoved[i]) {
+                setAssignmentCosts(table, i);
+                assignment.update(i);
+                isTreasureMoved[i] = false;
+            }
+        }
+        return assignment.getTotal();
+    }
+
+    private void setAssignmentCosts(final DistanceTable table, final int index) {
+        Point treasure = treasures.get(index);
+        boolean isInside = isInside(treasure.getX(), treasure.getY());
+        int cell = toCell(treasure.getX(), treasure.getY());
+        for (int target = 0; target < assignment.size(); target++) {
+            assignment.setCost(index, target, isInside ? table.getDistance(target, cell) : DistanceTable.UNREACHABLE);
+        }
+    }
+
+    /**
+     * Computes the region that the player can reach without pushing a treasure and all pushes that are possible
+     * from that region. The computation does not allocate memory: the returned instance is reused and overwritten by
+     * the next call of this method.
+     *
+     * @return the reachable region and the possible pushes of the current position
+     * @throws IllegalStateException if the level or the player has not been set
+     */
+    public Reachability computeReachability() {
+        ensureMovable();
+
+        return reachability.compute();
+    }
+
+    /**
+     * Returns whether the field with the specified index in the padded board is a floor or target field that is not
+     * occupied by a treasure. The fields of the border are never free.
+     *
+     * @param index the index of the field, see {@link #toIndex(int, int)}
+     * @return {@code true} if the player or a treasure can be moved to that field
+     */
+    boolean isFree(final int index) {
+        return occupancy[index] != BLOCKED && treasureIndex[index] == 0;
+    }
+
+    /**
+     * Returns whether there is a treasure on the field with the specified index in the padded board.
+     *
+     * @param index the index of the field, see {@link #toIndex(int, int)}
+     * @return {@code true} if a treasure is placed there
+     */
+    boolean hasTreasure(final int index) {
+        return treasureIndex[index] != 0;
+    }
+
+    /**
+     * Returns whether there is a treasure at the specified coordinates. Like {@link #getField(int, int)} no bounds
+     * checks are performed.
+     *
+     * @param x the x coordinate, between -1 and the width
+     * @param y the y coordinate, between -1 and the height
+     * @return {@code true} if the coordinates are inside of the level and a treasure is placed there
+     */
+    boolean hasTreasure(final int x, final int y) {
+        return treasureIndex[toIndex(x, y)] != 0;
+    }
+
+    /**
+     * Returns whether this position can't be solved anymore since treasures block each other. If the last move
+     * pushed a treasure, then only the neighborhood of that treasure is checked, otherwise all treasures are checked.
+     * Detected deadlock patterns are cached for the lifetime of the level. See {@link DeadlockDetector} for the
+     * detected kinds of deadlocks. The level needs to be valid.
+     *
+     * @return {@code true} if a deadlock has been detected, {@code false} if the position might be solvable
+     * @throws IllegalStateException if the level or the player has not been set
+     */
+    public boolean isDeadlocked() {
+        ensureMovable();
+        if (deadlockRevision != levelRevision) {
+            deadlockBoard = new SolverBoard(this);
+            deadlockDetector = new DeadlockDetector(deadlockBoard);
+            deadlockRevision = levelRevision;
+        }
+
+        int size = treasures.size();
+        if (treasureCells.length != size) {
+            treasureCells = new int[size];
+        }
+        for (int i = 0; i < size; i++) {
+            Point treasure = treasures.get(i);
+            treasureCells[i] = deadlockBoard.toCell(treasure.getX(), treasure.getY());
+        }
+        int playerCell = deadlockBoard.toCell(player.getX(), player.getY());
+        if (lastPush < 0) {
+            return deadlockDetector.isDeadlocked(treasureCells, playerCell);
+        }
+        return deadlockDetector.isDeadlocked(treasureCells, playerCell,
+                deadlockBoard.toCell(lastPush % stride - 1, lastPush / stride - 1));
+    }
+
+    private void ensureMovable() {
+        if (!hasLevel() || player == null) {
+            throw new IllegalStateException("Level and player must be set!");
+        }
+    }
+
+    private void addCheckpoint() {
+        int size = treasures.size() + 1;
+        if (checkpoint.length < size) {
+            checkpoint = new int[size];
+        }
+        checkpoint[0] = toCell(player.getX(), player.getY());
+        for (int i = 0; i < treasures.size(); i++) {
+            Point treasure = treasures.get(i);
+            checkpoint[i + 1] = toCell(treasure.getX(), treasure.getY());
+        }
+        journal.addCheckpoint(checkpoint, size);
+    }
+
+    private void restoreCheckpoint(final int position) {
+        int offset = journal.restore(position);
+        int[] states = journal.getCheckpoints();
+        int width = getWidth();
+        player = Point.valueOf(states[offset] % width, states[offset] / width);
+        int size = treasures.size();
+        treasures.clear();
+        for (int i = 0; i < size; i++) {
+            int cell = states[offset + 1 + i];
+            treasures.add(Point.valueOf(cell % width, cell / width));
+        }
+        indexTreasures();
+    }
+
+    private MoveResult step(final Orientation orientation) {
+        int delta = deltas[orientation.ordinal()];
+        int cell = toIndex(player.getX(), player.getY()) + delta;
+        if (occupancy[cell] == BLOCKED) {
+            return MoveResult.BLOCKED;
+        }
+
+        int x = player.getX() + orientation.getDeltaX();
+        int y = player.getY() + orientation.getDeltaY();
+        int treasure = treasureIndex[cell];
+        if (treasure == 0) {
+            player = Point.valueOf(x, y);
+            return MoveResult.WALKED;
+        }
+
+        int next = cell + delta;
+        if (occupancy[next] == BLOCKED || treasureIndex[next] != 0) {
+            return MoveResult.BLOCKED;
+        }
+        moveTreasure(treasure - 1, cell, x + orientation.getDeltaX(), y + orientation.getDeltaY());
+        player = Point.valueOf(x, y);
+        lastPush = next;
+        return MoveResult.PUSHED;
+    }
+
     /**
      * Returns the field at the specified position.
      *
@@ -107,11 +655,24 @@ public class Sokoban {
         if (point == null) {
             throw new IllegalArgumentException("Point must not be null!");
         }
-        if (point.getX() >= getWidth() || point.getY() >= getHeight()) {
+        if (!isInside(point.getX(), point.getY())) {
             throw new IllegalArgumentException(String.format("Point %s is out of bounds!", point.toString()));
         }
 
-        return level[point.getY()][point.getX()];
+        return getField(point.getX(), point.getY());
+    }
+
+    /**
+     * Returns the field at the specified coordinates. In contrast to {@link #getField(Point)} no bounds checks are
+     * performed, so this method can be used in loops over the whole level without creating {@link Point} instances.
+     * The coordinates may be one field outside of the level: the fields of the border are {@link Field#BACKGROUND}.
+     *
+     * @param x the x coordinate, between -1 and the width
+     * @param y the y coordinate, between -1 and the height
+     * @return the field at the specified coordinates
+     */
+    Field getField(final int x, final int y) {
+        return FIELDS[board[(y + 1) * stride + x + 1]];
     }
 
     /**
@@ -134,6 +695,9 @@ public class Sokoban {
             throw new IllegalArgumentException("Player must not be null!");
         }
         this.player = player;
+        isNormalizedHashValid = false;
+        lastPush = -1;
+        journal.clear();
     }
 
     /**
@@ -151,7 +715,16 @@ public class Sokoban {
      * @return the width of the level.
      */
     public int getWidth() {
-        return level[0].length;
+        return width;
+    }
+
+    /**
+     * Returns the length of a row of the padded board, i.e. the width of the level plus the left and right border.
+     *
+     * @return the stride of the padded board
+     */
+    int getStride() {
+        return stride;
     }
 
     /**
@@ -160,42 +733,17 @@ public class Sokoban {
      * @return the height of the level.
      */
     public int getHeight() {
-        return level.length;
+        return height;
     }
 
+    /**
+     * Returns the level in the XSB text format, see {@link XsbLevelWriter}.
+     *
+     * @return the text of the level
+     */
     @Override
     public String toString() {
-        String[][] stringLevel = new String[getHeight()][getWidth()];
-        for (int i = 0; i < getHeight(); i++) {
-            for (int j = 0; j < getWidth(); j++) {
-                stringLevel[i][j] = getValue(level[i][j]);
-            }
-        }
-
-        stringLevel[player.getY()][player.getX()] = "@";
-
-        for (int i = 0; i < treasures.size(); i++) {
-            stringLevel[treasures.get(i).getY()][treasures.get(i).getY()] = "$";
-        }
-
-        StringBuilder builder = new StringBuilder();
-        for (String[] sndLevel : stringLevel) {
-            for (String fieldValue : sndLevel) {
-                builder = builder.append(fieldValue);
-            }
-            builder = builder.append("\n");
-        }
-
-        return builder.toString();
-    }
-
-    private String getValue(final Field field) {
-        if (field == Field.TARGET) {
-            return ".";
-        } else if (field == Field.WALL) {
-            return "#";
-        }
-        return " ";
+        return XsbLevelWriter.toString(this);
     }
 
     private void checkPlayer() {
@@ -243,20 +791,156 @@ public class Sokoban {
     }
 
     private boolean isObjectNotInTheField(final Point point) {
-        return getField(point) == Field.BACKGROUND || getField(point) == Field.WALL;
+        Field field = getField(point.getX(), point.getY());
+        return field == Field.BACKGROUND || field == Field.WALL;
     }
 
     private boolean objectNotOutOfBounds(final Point point) {
-        return point.getX() < getWidth() && point.getY() < getHeight();
+        return isInside(point.getX(), point.getY());
+    }
+
+    private void createOccupancy() {
+        int cells = board.length;
+        occupancy = new byte[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            Field field = FIELDS[board[cell]];
+            if (field == Field.WALL || field == Field.BACKGROUND) {
+                occupancy[cell] = BLOCKED;
+            }
+            else if (field == Field.TARGET) {
+                occupancy[cell] = TARGET;
+            }
+        }
+        for (Orientation orientation : ORIENTATIONS) {
+            deltas[orientation.ordinal()] = orientation.getDeltaY() * stride + orientation.getDeltaX();
+        }
+        treasureIndex = new int[cells];
+        zobristKeys = new ZobristKeys(cells, ZobristKeys.DEFAULT_SEED);
+        indexTreasures();
+    }
+
+    private void indexTreasures() {
+        if (!hasLevel()) {
+            return;
+        }
+
+        Arrays.fill(treasureIndex, 0);
+        treasuresOnTargets = 0;
+        treasureHash = 0;
+        isNormalizedHashValid = false;
+        isAssignmentValid = false;
+        lastPush = -1;
+        for (int i = 0; i < treasures.size(); i++) {
+            indexTreasure(i, treasures.get(i));
+        }
+    }
+
+    private void indexTreasure(final int index, final Point treasure) {
+        if (hasLevel() && isInside(treasure.getX(), treasure.getY())) {
+            int cell = toIndex(treasure.getX(), treasure.getY());
+            treasureIndex[cell] = index + 1;
+            if (occupancy[cell] == TARGET) {
+                treasuresOnTargets++;
+            }
+            treasureHash ^= zobristKeys.getTreasureKey(cell);
+            isNormalizedHashValid = false;
+            isAssignmentValid = false;
+            lastPush = -1;
+        }
+    }
+
+    private int findTreasure(final Point treasure) {
+        if (hasLevel() && isInside(treasure.getX(), treasure.getY())) {
+            return treasureIndex[toIndex(treasure.getX(), treasure.getY())] - 1;
+        }
+        for (int i = 0; i < treasures.size(); i++) {
+            if (treasures.get(i).equals(treasure)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the specified treasure from the index. The treasures behind the removed one have been shifted by one
+     * position, so only their indices are updated instead of rebuilding the whole index.
+     */
+    private void unindexTreasure(final int index, final Point treasure) {
+        if (!hasLevel()) {
+            return;
+        }
+
+        if (isInside(treasure.getX(), treasure.getY())) {
+            int cell = toIndex(treasure.getX(), treasure.getY());
+            treasureIndex[cell] = 0;
+            if (occupancy[cell] == TARGET) {
+                treasuresOnTargets--;
+            }
+            treasureHash ^= zobristKeys.getTreasureKey(cell);
+        }
+        for (int i = index; i < treasures.size(); i++) {
+            Point shifted = treasures.get(i);
+            if (isInside(shifted.getX(), shifted.getY())) {
+                treasureIndex[toIndex(shifted.getX(), shifted.getY())] = i + 1;
+            }
+        }
+        isNormalizedHashValid = false;
+        isAssignmentValid = false;
+        lastPush = -1;
+    }
+
+    private void moveTreasure(final int index, final int from, final int x, final int y) {
+        int to = toIndex(x, y);
+        treasureIndex[from] = 0;
+        treasureIndex[to] = index + 1;
+        if (occupancy[from] == TARGET) {
+            treasuresOnTargets--;
+        }
+        if (occupancy[to] == TARGET) {
+            treasuresOnTargets++;
+        }
+        treasureHash ^= zobristKeys.getTreasureKey(from) ^ zobristKeys.getTreasureKey(to);
+        isNormalizedHashValid = false;
+        if (index < isTreasureMoved.length) {
+            isTreasureMoved[index] = true;
+        }
+        treasures.set(index, Point.valueOf(x, y));
+    }
+
+    private boolean hasLevel() {
+        return levelRevision != 0;
+    }
+
+    private boolean isInside(final int x, final int y) {
+        return x >= 0 && y >= 0 && x < getWidth() && y < getHeight();
+    }
+
+    /**
+     * Returns the cell index {@code y * width + x} of the specified coordinates, i.e. the index without the border
+     * that is used in the API of the {@link Reachability} and the {@link DistanceTable}.
+     */
+    private int toCell(final int x, final int y) {
+        return y * getWidth() + x;
+    }
+
+    /**
+     * Returns the index of the specified coordinates in the padded board and in all arrays that are aligned with it.
+     * The neighbor in a direction has the index {@code index + deltaY * stride + deltaX}, see {@link #getStride()}.
+     *
+     * @param x the x coordinate, between -1 and the width
+     * @param y the y coordinate, between -1 and the height
+     * @return the index in the padded board
+     */
+    int toIndex(final int x, final int y) {
+        return (y + 1) * stride + x + 1;
     }
 
     private int countTargets() {
+        byte target = (byte) Field.TARGET.ordinal();
         int counter = 0;
-        for (Field[] line : level) {
-            for (Field field : line) {
-                if (field == Field.TARGET) {
-                    counter++;
-                }
+        for (byte field : board) {
+            if (field == target) {
+                counter++;
             }
         }
         return counter;
@@ -0,0 +1,330 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary serialization of a {@link Sokoban} level. Levels are written to and read from a {@link ByteBuffer}
+ * directly, so several levels can be stored one after another in a single (direct or mapped) buffer without copying.
+ *
+ * <p>
+ * Format: version byte, width and height as varint, the fields in row-major order, the cell index {@code y * width +
+ * x} of the player as varint, the number of treasures as varint and the cell indices of the treasures in ascending
+ * order, each as varint of the difference to the previous cell. The fields are a sequence of blocks:
+ * </p>
+ * <ul>
+ *     <li>Run: header {@code 1wnnnnnn}, a run of walls ({@code w = 1}) or background fields ({@code w = 0}) of length
+ *     {@code n + } {@value #MINIMUM_RUN}. If {@code n} is {@value #RUN_MASK}, then the remaining length is appended as
+ *     varint.</li>
+ *     <li>Literal: header {@code 0nnnnnnn}, followed by {@code n} fields with two bits each (the ordinal of the
+ *     {@link Field}), four fields per byte.</li>
+ * </ul>
+ * <p>
+ * Varints use seven bits per byte, the highest bit marks that another byte follows. Since the treasures are written
+ * in ascending order, the order of {@link Sokoban#getTreasures()} is not preserved. A level has at most
+ * {@value #MAXIMUM_CELLS} fields, so a corrupt or hostile header can't trigger a huge allocation: since runs of any
+ * length take only a few bytes, the number of fields can't be bounded by the size of the buffer.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public final class SokobanBinaryFormat {
+    /** Version of the format. */
+    public static final int VERSION = 1;
+    /** Maximum number of fields ({@code width * height}) of a level. */
+    public static final int MAXIMUM_CELLS = 1 << 20;
+
+    private static final Field[] FIELDS = Field.values();
+    private static final int RUN_FLAG = 0x80;
+    private static final int WALL_FLAG = 0x40;
+    private static final int RUN_MASK = 0x3F;
+    private static final int MINIMUM_RUN = 4;
+    private static final int MAXIMUM_LITERAL = 0x7F;
+    private static final int BITS_PER_FIELD = 2;
+    private static final int FIELDS_PER_BYTE = 4;
+    private static final int MAXIMUM_VARINT_SIZE = 5;
+
+    /**
+     * Returns an upper bound of the number of bytes that are required to write the specified level.
+     *
+     * @param sokoban the level
+     * @return the maximum size in bytes
+     * @throws IllegalStateException if the level or the player has not been set
+     */
+    public static int getMaximumSize(final Sokoban sokoban) {
+        ensureMovable(sokoban);
+
+        // runs take at most one byte per field, so do literals that are followed by another block
+        int cells = sokoban.getWidth() * sokoban.getHeight();
+        return 1 + MAXIMUM_VARINT_SIZE * 4 + cells + 1 + sokoban.getTreasures().size() * MAXIMUM_VARINT_SIZE;
+    }
+
+    /**
+     * Returns the specified level as byte array.
+     *
+     * @param sokoban the level
+     * @return the serialized level
+     * @throws IllegalStateException if the level or the player has not been set
+     */
+    public static byte[] toBytes(final Sokoban sokoban) {
+        ByteBuffer buffer = ByteBuffer.allocate(getMaximumSize(sokoban));
+        write(sokoban, buffer);
+        byte[] bytes = new byte[buffer.position()];
+        ((Buffer) buffer).flip(); // Buffer method: the ByteBuffer override exists from Java 9 on
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes the specified level at the current position of the buffer. The position is advanced by the number of
+     * written bytes.
+     *
+     * @param sokoban the level
+     * @param buffer  the buffer to write to
+     * @return the number of written bytes
+     * @throws IllegalStateException   if the level or the player has not been set
+     * @throws IllegalArgumentException if the level has more than {@value #MAXIMUM_CELLS} fields or if the player or
+     *                                  a treasure is outside of the level
+     * @throws BufferOverflowException if the remaining space of the buffer is not sufficient, see {@link
+     *                                 #getMaximumSize(Sokoban)}
+     */
+    public static int write(final Sokoban sokoban, final ByteBuffer buffer) {
+        ensureMovable(sokoban);
+
+        int start = buffer.position();
+        int width = sokoban.getWidth();
+        int height = sokoban.getHeight();
+        checkSize(width, height);
+        Point player = sokoban.getPlayer();
+        checkPosition(player, width, height);
+        PointSet treasures = sokoban.getTreasures();
+        for (int i = 0; i < treasures.size(); i++) {
+            checkPosition(treasures.get(i), width, height);
+        }
+
+        buffer.put((byte) VERSION);
+        putVarint(buffer, width);
+        putVarint(buffer, height);
+        writeFields(sokoban, buffer, width, width * height);
+
+        putVarint(buffer, player.getY() * width + player.getX());
+        putVarint(buffer, treasures.size());
+        int previous = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (sokoban.hasTreasure(x, y)) {
+                    int cell = y * width + x;
+                    putVarint(buffer, cell - previous);
+                    previous = cell;
+                }
+            }
+        }
+        return buffer.position() - start;
+    }
+
+    private static void writeFields(final Sokoban sokoban, final ByteBuffer buffer, final int width,
+            final int cells) {
+        int cell = 0;
+        while (cell < cells) {
+            Field field = getField(sokoban, width, cell);
+            int run = 1;
+            if (field == Field.WALL || field == Field.BACKGROUND) {
+                while (cell + run < cells && getField(sokoban, width, cell + run) == field) {
+                    run++;
+                }
+            }
+            if (run >= MINIMUM_RUN) {
+                writeRun(buffer, field, run);
+                cell += run;
+            }
+            else {
+                cell = writeLiteral(sokoban, buffer, width, cell, cells);
+            }
+        }
+    }
+
+    private static void writeRun(final ByteBuffer buffer, final Field field, final int run) {
+        int length = run - MINIMUM_RUN;
+        int header = RUN_FLAG | (field == Field.WALL ? WALL_FLAG : 0);
+        if (length < RUN_MASK) {
+            buffer.put((byte) (header | length));
+        }
+        else {
+            buffer.put((byte) (header | RUN_MASK));
+            putVarint(buffer, length - RUN_MASK);
+        }
+    }
+
+    /**
+     * Writes a literal block that starts at the specified cell and ends before the next run or after the maximum
+     * length of a literal block.
+     *
+     * @return the first cell after the block
+     */
+    private static int writeLiteral(final Sokoban sokoban, final ByteBuffer buffer, final int width,
+            final int start, final int cells) {
+        int end = start;
+        while (end < cells && end - start < MAXIMUM_LITERAL && (end == start || !isRun(sokoban, width, end, cells))) {
+            end++;
+        }
+        buffer.put((byte) (end - start));
+        int packed = 0;
+        int count = 0;
+        for (int cell = start; cell < end; cell++) {
+            packed |= getField(sokoban, width, cell).ordinal() << (count * BITS_PER_FIELD);
+            count++;
+            if (count == FIELDS_PER_BYTE) {
+                buffer.put((byte) packed);
+                packed = 0;
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            buffer.put((byte) packed);
+        }
+        return end;
+    }
+
+    private static boolean isRun(final Sokoban sokoban, final int width, final int start, final int cells) {
+        Field field = getField(sokoban, width, start);
+        if (field != Field.WALL && field != Field.BACKGROUND || start + MINIMUM_RUN > cells) {
+            return false;
+        }
+        for (int cell = start + 1; cell < start + MINIMUM_RUN; cell++) {
+            if (getField(sokoban, width, cell) != field) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Field getField(final Sokoban sokoban, final int width, final int cell) {
+        return sokoban.getField(cell % width, cell / width);
+    }
+
+    /**
+     * Reads a level from the current position of the buffer. The position is advanced to the end of the level.
+     *
+     * @param buffer the buffer to read from
+     * @return the level, with player and treasures set, but not validated yet
+     * @throws IllegalArgumentException if the buffer does not contain a valid level
+     */
+    public static Sokoban read(final ByteBuffer buffer) {
+        try {
+            return readLevel(buffer);
+        }
+        catch (BufferUnderflowException exception) {
+            throw new IllegalArgumentException("Level is truncated!", exception);
+        }
+    }
+
+    private static Sokoban readLevel(final ByteBuffer buffer) {
+        int version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException(String.format("Unsupported version %d!", version));
+        }
+        int width = getVarint(buffer);
+        int height = getVarint(buffer);
+        checkSize(width, height);
+        int cells = width * height;
+
+        Field[][] fields = new Field[height][width];
+        int cell = 0;
+        while (cell < cells) {
+            int header = buffer.get() & 0xFF;
+            if ((header & RUN_FLAG) != 0) {
+                int run = header & RUN_MASK;
+                if (run == RUN_MASK) {
+                    run += getVarint(buffer);
+                }
+                run += MINIMUM_RUN;
+                Field field = (header & WALL_FLAG) != 0 ? Field.WALL : Field.BACKGROUND;
+                checkCells(cell + (long) run, cells);
+                for (int i = 0; i < run; i++, cell++) {
+                    fields[cell / width][cell % width] = field;
+                }
+            }
+            else {
+                if (header == 0) {
+                    throw new IllegalArgumentException("Empty literal block!");
+                }
+                checkCells(cell + (long) header, cells);
+                int packed = 0;
+                for (int i = 0; i < header; i++, cell++) {
+                    if (i % FIELDS_PER_BYTE == 0) {
+                        packed = buffer.get();
+                    }
+                    fields[cell / width][cell % width] = FIELDS[(packed >> (i % FIELDS_PER_BYTE * BITS_PER_FIELD)) & 3];
+                }
+            }
+        }
+
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(fields);
+        int player = getVarint(buffer);
+        checkCells(player, cells - 1);
+        sokoban.setPlayer(Point.valueOf(player % width, player / width));
+        int treasures = getVarint(buffer);
+        int treasure = 0;
+        for (int i = 0; i < treasures; i++) {
+            treasure += getVarint(buffer);
+            checkCells(treasure, cells - 1);
+            sokoban.addTreasure(Point.valueOf(treasure % width, treasure / width));
+        }
+        return sokoban;
+    }
+
+    private static void checkSize(final int width, final int height) {
+        if (width <= 0 || height <= 0 || (long) width * height > MAXIMUM_CELLS) {
+            throw new IllegalArgumentException(String.format("Invalid size %d x %d!", width, height));
+        }
+    }
+
+    private static void checkPosition(final Point position, final int width, final int height) {
+        if (position.getX() >= width || position.getY() >= height) {
+            throw new IllegalArgumentException(String.format("Position %s is outside of the level!", position));
+        }
+    }
+
+    private static void checkCells(final long cell, final int cells) {
+        if (cell < 0 || cell > cells) {
+            throw new IllegalArgumentException(String.format("Cell %d is out of bounds!", cell));
+        }
+    }
+
+    private static void ensureMovable(final Sokoban sokoban) {
+        if (sokoban == null) {
+            throw new IllegalArgumentException("Sokoban must not be null!");
+        }
+        if (sokoban.getLevelRevision() == 0 || sokoban.getPlayer() == null) {
+            throw new IllegalStateException("Level and player must be set!");
+        }
+    }
+
+    private static void putVarint(final ByteBuffer buffer, final int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            buffer.put((byte) (remaining & 0x7F | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    private static int getVarint(final ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < MAXIMUM_VARINT_SIZE * 7; shift += 7) {
+            int current = buffer.get();
+            value |= (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint!");
+    }
+
+    private SokobanBinaryFormat() {
+        // prevents instantiation
+    }
+}
@@ -1,17 +1,52 @@
 package edu.hm.hafner.java2.sokoban;
 
-import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.io.InputStream;
 
 /**
- * Draws the Sokoban level into an image.
+ * Draws the Sokoban level into an image. Each render pass uses a single {@link Graphics2D} context that draws the
+ * tiles row by row and is disposed at the end of the pass.
  *
  * @author Ullrich Hafner
  */
 public class SokobanImageRenderer {
-    private static final int BLOCK_SIZE = 64;
+    private final TileAtlas atlas;
+    private final int blockSize;
+
+    /**
+     * Creates a new renderer that uses the shared {@link TileAtlas}.
+     */
+    public SokobanImageRenderer() {
+        this(TileAtlas.getDefault());
+    }
+
+    /**
+     * Creates a new renderer that uses the tiles of the specified atlas.
+     *
+     * @param atlas the atlas that provides the tiles
+     */
+    public SokobanImageRenderer(final TileAtlas atlas) {
+        this.atlas = atlas;
+        blockSize = atlas.getBlockSize();
+    }
+
+    /**
+     * Returns the width and height of a single field in pixels.
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the atlas that provides the tiles.
+     *
+     * @return the atlas
+     */
+    public TileAtlas getAtlas() {
+        return atlas;
+    }
 
     /**
      * Returns the Sokoban level as an image.
@@ -19,46 +54,103 @@ public class SokobanImageRenderer {
      * @return an image of this board
      */
     public BufferedImage toImage(final Sokoban sokoban, final Orientation orientation) {
-        BufferedImage boardImage = new BufferedImage(sokoban.getWidth() * BLOCK_SIZE,
-                sokoban.getHeight() * BLOCK_SIZE, BufferedImage.TYPE_INT_RGB);
-        for (int y = 0; y < sokoban.getHeight(); y++) {
-            for (int x = 0; x < sokoban.getWidth(); x++) {
-                drawImage(boardImage, asImageName(sokoban.getField(new Point(x, y))), x, y);
-            }
+        return toImage(sokoban, orientation, null);
+    }
+
+    /**
+     * Draws the Sokoban level into the specified target image. If the target is {@code null} or does not match the
+     * size of the level, then a new image is created. So repeated renders of a board with the same size can reuse
+     * the image of the previous render pass.
+     *
+     * @param sokoban     the level to draw
+     * @param orientation the orientation of the player
+     * @param target      the image to draw into, might be {@code null}
+     * @return an image of this board, either the target or a new image
+     */
+    public BufferedImage toImage(final Sokoban sokoban, final Orientation orientation, final BufferedImage target) {
+        BufferedImage boardImage = createImage(sokoban, target);
+        Graphics2D graphics = boardImage.createGraphics();
+        try {
+            drawFields(graphics, sokoban, 0, sokoban.getHeight());
+            drawSprites(graphics, sokoban, orientation);
         }
-        drawImage(boardImage, sokoban.getPlayer(), asImageName(orientation));
-        PointSet treasures = sokoban.getTreasures();
-        for (int i = 0; i < treasures.size(); i++) {
-            drawImage(boardImage, treasures.get(i), "treasure");
+        finally {
+            graphics.dispose();
         }
-
         return boardImage;
     }
 
-    private String asImageName(final Enum<?> type) {
-        return type.name().toLowerCase();
-    }
-
-    private void drawImage(final BufferedImage boardImage, final Point position, final String imageName) {
-        drawImage(boardImage, imageName, position.getX(), position.getY());
+    /**
+     * Returns whether the specified image can be used as target for the specified level.
+     *
+     * @param sokoban the level
+     * @param image   the image, might be {@code null}
+     * @return {@code true} if the image has the size of the level, {@code false} otherwise
+     */
+    boolean isCompatible(final Sokoban sokoban, final BufferedImage image) {
+        return image != null && image.getWidth() == sokoban.getWidth() * blockSize
+                && image.getHeight() == sokoban.getHeight() * blockSize;
     }
 
-    private void drawImage(final BufferedImage boardImage, final String imageName, final int x, final int y) {
-        boardImage.createGraphics().drawImage(loadImage(imageName),
-                x * BLOCK_SIZE, y * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE, null);
+    /**
+     * Returns the specified target image if it is compatible with the level, otherwise a new image.
+     *
+     * @param sokoban the level
+     * @param target  the image to reuse, might be {@code null}
+     * @return the image to draw into
+     */
+    BufferedImage createImage(final Sokoban sokoban, final BufferedImage target) {
+        if (isCompatible(sokoban, target)) {
+            return target;
+        }
+        return new BufferedImage(sokoban.getWidth() * blockSize, sokoban.getHeight() * blockSize,
+                BufferedImage.TYPE_INT_RGB);
     }
 
-    private static BufferedImage loadImage(final String imageName) {
-        String fileName = imageName + ".png";
-        try {
-            InputStream stream = SokobanImageRenderer.class.getResourceAsStream("/" + fileName);
-            if (stream == null) {
-                throw new IllegalArgumentException("Can't find image " + fileName);
+    /**
+     * Draws the fields of the specified rows in row-major order.
+     *
+     * @param graphics the graphics context to draw with
+     * @param sokoban  the level
+     * @param fromRow  the first row (inclusive)
+     * @param toRow    the last row (exclusive)
+     */
+    void drawFields(final Graphics2D graphics, final Sokoban sokoban, final int fromRow, final int toRow) {
+        int width = sokoban.getWidth();
+        for (int y = fromRow; y < toRow; y++) {
+            for (int x = 0; x < width; x++) {
+                drawTile(graphics, atlas.getTile(sokoban.getField(x, y)), x, y);
             }
-            return ImageIO.read(stream);
         }
-        catch (IOException exception) {
-            throw new IllegalArgumentException("Can't read image " + imageName, exception);
+    }
+
+    /**
+     * Draws the player and all treasures.
+     *
+     * @param graphics    the graphics context to draw with
+     * @param sokoban     the level
+     * @param orientation the orientation of the player
+     */
+    void drawSprites(final Graphics2D graphics, final Sokoban sokoban, final Orientation orientation) {
+        Point player = sokoban.getPlayer();
+        drawTile(graphics, atlas.getTile(orientation), player.getX(), player.getY());
+        BufferedImage treasure = atlas.getTile(TileAtlas.TREASURE);
+        PointSet treasures = sokoban.getTreasures();
+        for (int i = 0; i < treasures.size(); i++) {
+            Point position = treasures.get(i);
+            drawTile(graphics, treasure, position.getX(), position.getY());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Draws the tile at the specified field coordinates.
+     *
+     * @param graphics the graphics context to draw with
+     * @param tile     the tile to draw
+     * @param x        the x coordinate of the field
+     * @param y        the y coordinate of the field
+     */
+    void drawTile(final Graphics2D graphics, final BufferedImage tile, final int x, final int y) {
+        graphics.drawImage(tile, x * blockSize, y * blockSize, null);
+    }
+}
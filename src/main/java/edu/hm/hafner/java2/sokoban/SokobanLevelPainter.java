@@ -4,6 +4,7 @@ import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
@@ -32,9 +33,9 @@ public class SokobanLevelPainter extends JPanel {
                 };
                 Sokoban sokoban = new Sokoban();
                 sokoban.setLevel(level);
-                sokoban.setPlayer(new Point(3, 4));
-                sokoban.addTreasure(new Point(2, 4));
-                sokoban.addTreasure(new Point(4, 5));
+                sokoban.setPlayer(Point.valueOf(3, 4));
+                sokoban.addTreasure(Point.valueOf(2, 4));
+                sokoban.addTreasure(Point.valueOf(4, 5));
                 sokoban.validate();
 
                 createAndShowGUI(sokoban);
@@ -48,9 +49,10 @@ public class SokobanLevelPainter extends JPanel {
      * @param sokoban the sokoban level
      */
     private static void createAndShowGUI(final Sokoban sokoban) {
-        SokobanImageRenderer painter = new SokobanImageRenderer();
-        BufferedImage bitmap = painter.toImage(sokoban, Orientation.DOWN);
-        SokobanLevelPainter panel = new SokobanLevelPainter(bitmap);
+        IncrementalSokobanRenderer renderer = new IncrementalSokobanRenderer();
+        renderer.render(sokoban, Orientation.DOWN);
+        BufferedImage bitmap = renderer.getImage();
+        SokobanLevelPainter panel = new SokobanLevelPainter(renderer);
         panel.setFocusable(true);
 
         JFrame frame = new JFrame();
@@ -67,11 +69,32 @@ public class SokobanLevelPainter extends JPanel {
                 if (keyCode == KeyEvent.VK_ESCAPE || keyCode == KeyEvent.VK_ENTER) {
                     System.exit(0);
                 }
+                Orientation orientation = asOrientation(keyCode);
+                if (orientation != null) {
+                    sokoban.move(orientation);
+                    panel.update(sokoban, orientation);
+                }
             }
         });
     }
 
+    private static Orientation asOrientation(final int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_LEFT:
+                return Orientation.LEFT;
+            case KeyEvent.VK_RIGHT:
+                return Orientation.RIGHT;
+            case KeyEvent.VK_UP:
+                return Orientation.UP;
+            case KeyEvent.VK_DOWN:
+                return Orientation.DOWN;
+            default:
+                return null;
+        }
+    }
+
     private BufferedImage image;
+    private final IncrementalSokobanRenderer renderer;
 
     /**
      * Creates a new instance of {@link SokobanLevelPainter}.
@@ -82,6 +105,36 @@ public class SokobanLevelPainter extends JPanel {
         super();
 
         this.image = image;
+        renderer = null;
+    }
+
+    /**
+     * Creates a new instance of {@link SokobanLevelPainter} that shows the frames of the specified renderer.
+     *
+     * @param renderer the renderer that provides the frames
+     */
+    SokobanLevelPainter(final IncrementalSokobanRenderer renderer) {
+        super();
+
+        this.renderer = renderer;
+        image = renderer.getImage();
+    }
+
+    /**
+     * Renders the changes of the specified level and repaints only the area of the panel that has been changed.
+     *
+     * @param sokoban     the level to show
+     * @param orientation the orientation of the player
+     */
+    void update(final Sokoban sokoban, final Orientation orientation) {
+        if (renderer == null) {
+            throw new IllegalStateException("Painter has been created for a fixed image!");
+        }
+        Rectangle dirty = renderer.render(sokoban, orientation);
+        image = renderer.getImage();
+        if (!dirty.isEmpty()) {
+            repaint(dirty);
+        }
     }
 
     /**
@@ -0,0 +1,218 @@
+package edu.hm.hafner.java2.sokoban;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports many Sokoban levels as PNG images without the need of a display. The levels are rendered and encoded by a
+ * bounded pool of worker threads. Only a fixed number of levels is in flight at the same time: if all slots are in
+ * use, then the exporter waits until the oldest level has been written before it requests the next level from the
+ * source. So the memory consumption stays constant, no matter how many levels are exported. The images are written
+ * in the order of the source.
+ *
+ * @author Julian Wagner
+ */
+public class SokobanPngExporter implements AutoCloseable {
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final SokobanImageRenderer renderer;
+    private final Orientation orientation;
+    private final int maximumPending;
+    private final ExecutorService workers;
+
+    private final ThreadLocal<BufferedImage> images = new ThreadLocal<>();
+    private final ThreadLocal<ImageWriter> writers = ThreadLocal.withInitial(
+            () -> ImageIO.getImageWritersByFormatName("png").next());
+
+    /**
+     * Target of the exported images.
+     */
+    @FunctionalInterface
+    public interface PngTarget {
+        /**
+         * Opens the stream for the image of the level with the specified index. The stream is closed after the image
+         * has been written.
+         *
+         * @param index the index of the level in the source, starting with 0
+         * @return the stream to write the image to
+         * @throws IOException if the stream could not be opened
+         */
+        OutputStream open(int index) throws IOException;
+    }
+
+    /**
+     * Returns a target that writes the images into files {@code level-00000.png}, {@code level-00001.png}, etc. of
+     * the specified directory.
+     *
+     * @param directory the directory to write the files to
+     * @return the target
+     */
+    public static PngTarget toDirectory(final Path directory) {
+        return index -> Files.newOutputStream(directory.resolve(String.format("level-%05d.png", index)));
+    }
+
+    /**
+     * Returns a target that writes all images one after another into the specified stream. The stream is not
+     * closed by the exporter.
+     *
+     * @param stream the stream to write the images to
+     * @return the target
+     */
+    public static PngTarget toStream(final OutputStream stream) {
+        return index -> new FilterOutputStream(stream) {
+            @Override
+            public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * Creates a new exporter that uses the tiles of the class path, scaled to the specified block size.
+     *
+     * @param blockSize the width and height of a field in pixels, use small values to create thumbnails
+     * @param threads   the number of worker threads
+     */
+    public SokobanPngExporter(final int blockSize, final int threads) {
+        this(new TileAtlas(blockSize), threads, threads * 2);
+    }
+
+    /**
+     * Creates a new exporter.
+     *
+     * @param atlas          the atlas that provides the pre-scaled tiles
+     * @param threads        the number of worker threads
+     * @param maximumPending the maximum number of levels that are rendered or waiting to be written at the same time
+     * @throws IllegalArgumentException if the number of threads or pending levels is not positive
+     */
+    public SokobanPngExporter(final TileAtlas atlas, final int threads, final int maximumPending) {
+        if (threads <= 0 || maximumPending <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Number of threads (%d) and pending levels (%d) must be positive!", threads, maximumPending));
+        }
+
+        renderer = new SokobanImageRenderer(atlas);
+        orientation = Orientation.DOWN;
+        this.maximumPending = maximumPending;
+        workers = Executors.newFixedThreadPool(threads, createThreadFactory());
+    }
+
+    /**
+     * Exports all levels of the specified source.
+     *
+     * @param levels the levels to export
+     * @param target the target to write the images to
+     * @return the number of exported levels
+     * @throws IOException if an image could not be rendered or written
+     */
+    public int export(final Iterable<Sokoban> levels, final PngTarget target) throws IOException {
+        return export(levels.iterator(), target);
+    }
+
+    /**
+     * Exports all levels of the specified source. The levels are requested from the source only if there is a free
+     * slot, so the source can create the levels lazily.
+     *
+     * @param levels the levels to export
+     * @param target the target to write the images to
+     * @return the number of exported levels
+     * @throws IOException if an image could not be rendered or written
+     */
+    public int export(final Iterator<Sokoban> levels, final PngTarget target) throws IOException {
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>(maximumPending);
+        int written = 0;
+        try {
+            while (levels.hasNext()) {
+                if (pending.size() == maximumPending) {
+                    write(pending.poll(), target, written++);
+                }
+                Sokoban sokoban = levels.next();
+                pending.add(workers.submit(() -> encode(sokoban)));
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), target, written++);
+            }
+            return written;
+        }
+        finally {
+            for (Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    private void write(final Future<byte[]> future, final PngTarget target, final int index) throws IOException {
+        byte[] png = await(future);
+        try (OutputStream stream = target.open(index)) {
+            stream.write(png);
+        }
+    }
+
+    private byte[] await(final Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export has been interrupted", exception);
+        }
+        catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Can't render level", cause);
+        }
+    }
+
+    private byte[] encode(final Sokoban sokoban) throws IOException {
+        BufferedImage image = renderer.toImage(sokoban, orientation, images.get());
+        images.set(image);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4 + 1024);
+        ImageWriter writer = writers.get();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(bytes)) {
+            writer.setOutput(stream);
+            writer.write(image);
+        }
+        finally {
+            writer.setOutput(null);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "sokoban-png-export-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
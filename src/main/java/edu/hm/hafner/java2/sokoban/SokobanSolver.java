@@ -0,0 +1,128 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Solves Sokoban levels with an A* search over pushes. A search state consists of the treasure positions and the
+ * region the player can reach without pushing a treasure. The remaining pushes are estimated by the minimum-cost
+ * matching between the treasures and the targets, using the push distances of each field to each target. Since
+ * this estimate never overestimates, the number of pushes of a found solution is minimal.
+ *
+ * <p>
+ * The visited states are stored in an {@link OffHeapStateTable} outside of the Java heap, optionally in a
+ * memory-mapped file. Only the nodes in the open queue and their ancestors remain on the heap.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public class SokobanSolver {
+    /** Default maximum number of nodes that are expanded before the search is stopped. */
+    public static final int DEFAULT_NODE_LIMIT = 1_000_000;
+    /** Default maximum size of the table of visited states in bytes. */
+    public static final long DEFAULT_TABLE_SIZE = 256L << 20;
+
+    /** Orders the nodes by their estimated cost, prefers deeper nodes if the costs are equal. */
+    static final Comparator<SearchNode> BEST_FIRST = Comparator.comparingInt(SearchNode::getCost)
+            .thenComparingInt(SearchNode::getEstimate);
+
+    private final int nodeLimit;
+    private final long maximumTableSize;
+    private final Path spillDirectory;
+
+    /**
+     * Creates a new solver with the default node limit.
+     */
+    public SokobanSolver() {
+        this(DEFAULT_NODE_LIMIT);
+    }
+
+    /**
+     * Creates a new solver that keeps the visited states in direct memory of the default size.
+     *
+     * @param nodeLimit the maximum number of nodes that are expanded before the search is stopped
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public SokobanSolver(final int nodeLimit) {
+        this(nodeLimit, DEFAULT_TABLE_SIZE, null);
+    }
+
+    /**
+     * Creates a new solver.
+     *
+     * @param nodeLimit        the maximum number of nodes that are expanded before the search is stopped
+     * @param maximumTableSize the maximum size of the table of visited states in bytes, the search is stopped if
+     *                         the table is full
+     * @param spillDirectory   the directory of a temporary file that is mapped into memory to store the visited
+     *                         states, or {@code null} to keep the states in direct memory
+     * @throws IllegalArgumentException if the limit or the table size is not positive
+     */
+    public SokobanSolver(final int nodeLimit, final long maximumTableSize, final Path spillDirectory) {
+        if (nodeLimit <= 0) {
+            throw new IllegalArgumentException(String.format("Node limit %d must be positive!", nodeLimit));
+        }
+        if (maximumTableSize <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Table size %d must be positive!", maximumTableSize));
+        }
+        this.nodeLimit = nodeLimit;
+        this.maximumTableSize = maximumTableSize;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Solves the specified level. The level is not changed.
+     *
+     * @param sokoban the level to solve
+     * @return the solution, see {@link Solution#isSolved()}
+     * @throws IllegalArgumentException if the level is not valid
+     */
+    public Solution solve(final Sokoban sokoban) {
+        sokoban.validate();
+
+        long start = System.nanoTime();
+        SolverBoard board = new SolverBoard(sokoban);
+        PushGenerator generator = new PushGenerator(board);
+        SearchNode root = generator.createRoot();
+        if (root == null) {
+            return new Solution(false, false, Collections.<Orientation>emptyList(), 0, 0, 0,
+                    System.nanoTime() - start);
+        }
+
+        try (OffHeapStateTable visited = new OffHeapStateTable(root.getTreasures().length, board.size(),
+                maximumTableSize, spillDirectory)) {
+            PriorityQueue<SearchNode> open = new PriorityQueue<>(BEST_FIRST);
+            open.add(root);
+            visited.offer(root);
+
+            long expanded = 0;
+            long generated = 1;
+            while (!open.isEmpty()) {
+                SearchNode node = open.poll();
+                if (visited.get(node) < node.getPushes()) {
+                    continue; // a cheaper path to this state has been found in the meantime
+                }
+                if (generator.isSolved(node.getTreasures())) {
+                    return new Solution(true, false, generator.toMoves(node), node.getPushes(),
+                            expanded, generated, System.nanoTime() - start);
+                }
+                if (expanded == nodeLimit || visited.isFull()) {
+                    return new Solution(false, true, Collections.<Orientation>emptyList(), 0,
+                            expanded, generated, System.nanoTime() - start);
+                }
+
+                expanded++;
+                for (SearchNode child : generator.expand(node)) {
+                    generated++;
+                    if (visited.offer(child)) {
+                        open.add(child);
+                    }
+                }
+            }
+            return new Solution(false, false, Collections.<Orientation>emptyList(), 0,
+                    expanded, generated, System.nanoTime() - start);
+        }
+    }
+}
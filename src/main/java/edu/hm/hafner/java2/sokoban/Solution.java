@@ -0,0 +1,129 @@
+package edu.hm.hafner.java2.sokoban;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a {@link SokobanSolver} run: the moves that solve the level together with statistics of the search.
+ *
+ * @author Julian Wagner
+ */
+@Immutable
+public final class Solution {
+    private final boolean solved;
+    private final boolean limitReached;
+    private final List<Orientation> moves;
+    private final int pushCount;
+    private final long expandedNodes;
+    private final long generatedNodes;
+    private final long durationNanos;
+
+    /**
+     * Creates a new solution.
+     *
+     * @param solved         determines whether the level has been solved
+     * @param limitReached   determines whether the search has been stopped since the node limit or the memory limit
+     *                       has been reached
+     * @param moves          the moves that solve the level
+     * @param pushCount      the number of pushes of the solution
+     * @param expandedNodes  the number of expanded search nodes
+     * @param generatedNodes the number of generated search nodes
+     * @param durationNanos  the duration of the search in nanoseconds
+     */
+    Solution(final boolean solved, final boolean limitReached, final List<Orientation> moves, final int pushCount,
+            final long expandedNodes, final long generatedNodes, final long durationNanos) {
+        this.solved = solved;
+        this.limitReached = limitReached;
+        this.moves = Collections.unmodifiableList(new ArrayList<>(moves));
+        this.pushCount = pushCount;
+        this.expandedNodes = expandedNodes;
+        this.generatedNodes = generatedNodes;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Returns whether a solution has been found.
+     *
+     * @return {@code true} if the level has been solved, {@code false} if the level is not solvable or a limit
+     *         has been reached
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * Returns whether the search has been stopped before the whole search space has been explored.
+     *
+     * @return {@code true} if the node limit or the memory limit of the search has been reached
+     */
+    public boolean isLimitReached() {
+        return limitReached;
+    }
+
+    /**
+     * Returns the moves of the player that solve the level.
+     *
+     * @return the moves, empty if no solution has been found
+     */
+    public List<Orientation> getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the number of pushes of the solution. The number of pushes is minimal.
+     *
+     * @return the number of pushes
+     */
+    public int getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * Returns the number of search nodes that have been expanded.
+     *
+     * @return the number of expanded nodes
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Returns the number of search nodes that have been generated.
+     *
+     * @return the number of generated nodes
+     */
+    public long getGeneratedNodes() {
+        return generatedNodes;
+    }
+
+    /**
+     * Returns the duration of the search.
+     *
+     * @param unit the time unit of the result
+     * @return the duration
+     */
+    public long getDuration(final TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of expanded nodes per second.
+     *
+     * @return the throughput of the search
+     */
+    public double getNodesPerSecond() {
+        if (durationNanos == 0) {
+            return 0;
+        }
+        return expandedNodes * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d moves, %d pushes, %d nodes expanded (%.0f nodes/s)",
+                solved ? "Solved" : "Not solved", moves.size(), pushCount, expandedNodes, getNodesPerSecond());
+    }
+}
@@ -0,0 +1,178 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.Arrays;
+
+/**
+ * Static view of a Sokoban level that is used by the solvers. The level is stored in flat arrays that are indexed by
+ * {@code y * width + x}. The board is surrounded by an additional border of walls so that neighbor lookups need no
+ * bounds checks. The push distances from every field to every target are taken from the {@link DistanceTable} of
+ * the level, and the board provides the {@link ZobristKeys} to hash the search states.
+ *
+ * @author Julian Wagner
+ */
+final class SolverBoard {
+    /** Distance of a field from which a target cannot be reached. */
+    static final int UNREACHABLE = DistanceTable.UNREACHABLE;
+
+    private final int width;
+    private final int height;
+    private final boolean[] floor;
+    private final boolean[] target;
+    private final boolean[] dead;
+    private final int[] targets;
+    private final int[] deltas;
+    private final DistanceTable distances;
+    private final int[] levelCells;
+    private final ZobristKeys keys;
+
+    private final int player;
+    private final int[] treasures;
+
+    /**
+     * Creates a new board for the specified level that uses the default seed for the Zobrist keys. The level needs
+     * to be valid.
+     *
+     * @param sokoban the level
+     */
+    SolverBoard(final Sokoban sokoban) {
+        this(sokoban, ZobristKeys.DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a new board for the specified level. The level needs to be valid.
+     *
+     * @param sokoban the level
+     * @param seed    the seed of the Zobrist keys
+     */
+    SolverBoard(final Sokoban sokoban, final long seed) {
+        width = sokoban.getWidth() + 2;
+        height = sokoban.getHeight() + 2;
+        floor = new boolean[width * height];
+        target = new boolean[width * height];
+        dead = new boolean[width * height];
+        levelCells = new int[width * height];
+        Arrays.fill(levelCells, -1);
+
+        int targetCount = 0;
+        for (int y = 0; y < sokoban.getHeight(); y++) {
+            for (int x = 0; x < sokoban.getWidth(); x++) {
+                Field field = sokoban.getField(x, y);
+                int cell = toCell(x, y);
+                floor[cell] = field == Field.FLOOR || field == Field.TARGET;
+                target[cell] = field == Field.TARGET;
+                dead[cell] = sokoban.isDeadSquare(x, y);
+                levelCells[cell] = y * sokoban.getWidth() + x;
+                if (target[cell]) {
+                    targetCount++;
+                }
+            }
+        }
+        targets = new int[targetCount];
+        int index = 0;
+        for (int cell = 0; cell < target.length; cell++) {
+            if (target[cell]) {
+                targets[index++] = cell;
+            }
+        }
+
+        Orientation[] orientations = Orientation.values();
+        deltas = new int[orientations.length];
+        for (Orientation orientation : orientations) {
+            deltas[orientation.ordinal()] = orientation.getDeltaY() * width + orientation.getDeltaX();
+        }
+
+        distances = sokoban.getDistanceTable();
+
+        player = toCell(sokoban.getPlayer().getX(), sokoban.getPlayer().getY());
+        PointSet positions = sokoban.getTreasures();
+        treasures = new int[positions.size()];
+        for (int i = 0; i < treasures.length; i++) {
+            treasures[i] = toCell(positions.get(i).getX(), positions.get(i).getY());
+        }
+        Arrays.sort(treasures);
+
+        keys = new ZobristKeys(floor.length, seed);
+    }
+
+    /**
+     * Returns the cell index of the specified coordinates of the original level.
+     *
+     * @param x the x coordinate in the level
+     * @param y the y coordinate in the level
+     * @return the cell index
+     */
+    int toCell(final int x, final int y) {
+        return (y + 1) * width + x + 1;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int size() {
+        return floor.length;
+    }
+
+    boolean isFloor(final int cell) {
+        return floor[cell];
+    }
+
+    boolean isTarget(final int cell) {
+        return target[cell];
+    }
+
+    /**
+     * Returns whether the specified cell is a dead square, i.e. a treasure on that cell can't reach any target.
+     *
+     * @param cell the cell index
+     * @return {@code true} if the cell is a dead square
+     */
+    boolean isDead(final int cell) {
+        return dead[cell];
+    }
+
+    int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * Returns the cell index offset of a step in each direction, indexed by the ordinal of the {@link Orientation}.
+     *
+     * @return the offsets
+     */
+    int[] getDeltas() {
+        return deltas;
+    }
+
+    /**
+     * Returns the push distance from the specified cell to the target with the specified index.
+     *
+     * @param targetIndex the index of the target
+     * @param cell        the cell of the treasure
+     * @return the number of pushes, or {@link #UNREACHABLE}
+     */
+    int getDistance(final int targetIndex, final int cell) {
+        return distances.getDistance(targetIndex, levelCells[cell]);
+    }
+
+    ZobristKeys getKeys() {
+        return keys;
+    }
+
+    int getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the cells of the treasures in the initial state, sorted in ascending order.
+     *
+     * @return the treasure cells
+     */
+    int[] getTreasures() {
+        return treasures.clone();
+    }
+}
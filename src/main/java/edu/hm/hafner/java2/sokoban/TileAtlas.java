@@ -0,0 +1,216 @@
+package edu.hm.hafner.java2.sokoban;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the tile images that are used to render a Sokoban level. Each tile is decoded exactly once, scaled to the
+ * block size and converted into the {@link BufferedImage#TYPE_INT_ARGB} format so that it can be copied into a board
+ * image without any further conversion. Instances of this class are thread safe.
+ *
+ * @author Julian Wagner
+ */
+public class TileAtlas {
+    /** Default width and height of a tile in pixels. */
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    /** Name of the treasure tile. */
+    public static final String TREASURE = "treasure";
+
+    private final int blockSize;
+    private final Map<String, BufferedImage> tiles = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loadTime = new AtomicLong();
+
+    /**
+     * Returns the shared atlas with the default block size. The tiles are loaded on the first call.
+     *
+     * @return the shared atlas
+     */
+    public static TileAtlas getDefault() {
+        return DefaultAtlasHolder.INSTANCE;
+    }
+
+    /**
+     * Returns the names of all tiles that are used to render a level: one tile for each {@link Field}, the treasure
+     * and one tile for each player {@link Orientation}.
+     *
+     * @return the names of the tiles
+     */
+    public static String[] getTileNames() {
+        Field[] fields = Field.values();
+        Orientation[] orientations = Orientation.values();
+        String[] names = new String[fields.length + orientations.length + 1];
+        int index = 0;
+        for (Field field : fields) {
+            names[index++] = asTileName(field);
+        }
+        names[index++] = TREASURE;
+        for (Orientation orientation : orientations) {
+            names[index++] = asTileName(orientation);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the name of the tile that represents the specified type.
+     *
+     * @param type the field or orientation
+     * @return the name of the tile
+     */
+    public static String asTileName(final Enum<?> type) {
+        return type.name().toLowerCase();
+    }
+
+    /**
+     * Creates a new atlas that loads all tiles from the class path and scales them to the specified block size.
+     *
+     * @param blockSize the width and height of a tile in pixels
+     * @throws IllegalArgumentException if the block size is not positive or a tile could not be loaded
+     */
+    public TileAtlas(final int blockSize) {
+        this(blockSize, null);
+    }
+
+    /**
+     * Creates a new atlas that uses the specified images as tiles. Tiles that are not part of the map are loaded from
+     * the class path.
+     *
+     * @param blockSize the width and height of a tile in pixels
+     * @param images    the images to use, might be {@code null}
+     * @throws IllegalArgumentException if the block size is not positive or a tile could not be loaded
+     */
+    TileAtlas(final int blockSize, final Map<String, BufferedImage> images) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException(String.format("Block size %d must be positive!", blockSize));
+        }
+        this.blockSize = blockSize;
+
+        for (String name : getTileNames()) {
+            long start = System.nanoTime();
+            BufferedImage image = images != null && images.containsKey(name) ? images.get(name) : loadImage(name);
+            tiles.put(name, toTile(image));
+            loadTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the width and height of a tile in pixels.
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the tile with the specified name. Tiles that have not been preloaded are loaded on the first access.
+     *
+     * @param name the name of the tile
+     * @return the tile
+     * @throws IllegalArgumentException if the tile could not be loaded
+     */
+    public BufferedImage getTile(final String name) {
+        BufferedImage tile = tiles.get(name);
+        if (tile != null) {
+            hits.incrementAndGet();
+            return tile;
+        }
+
+        return tiles.computeIfAbsent(name, this::loadTile);
+    }
+
+    /**
+     * Returns the tile for the specified field.
+     *
+     * @param field the field
+     * @return the tile
+     */
+    public BufferedImage getTile(final Field field) {
+        return getTile(asTileName(field));
+    }
+
+    /**
+     * Returns the tile for the player with the specified orientation.
+     *
+     * @param orientation the orientation of the player
+     * @return the tile
+     */
+    public BufferedImage getTile(final Orientation orientation) {
+        return getTile(asTileName(orientation));
+    }
+
+    /**
+     * Returns the number of tile requests that have been answered from the atlas.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of tile requests that required to load an image.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the total time that has been spent to load and convert the tiles.
+     *
+     * @return the load time in nanoseconds
+     */
+    public long getLoadTimeNanos() {
+        return loadTime.get();
+    }
+
+    private BufferedImage loadTile(final String name) {
+        long start = System.nanoTime();
+        misses.incrementAndGet();
+        BufferedImage tile = toTile(loadImage(name));
+        loadTime.addAndGet(System.nanoTime() - start);
+        return tile;
+    }
+
+    private BufferedImage toTile(final BufferedImage image) {
+        BufferedImage tile = new BufferedImage(blockSize, blockSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = tile.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, blockSize, blockSize, null);
+        }
+        finally {
+            graphics.dispose();
+        }
+        return tile;
+    }
+
+    private static BufferedImage loadImage(final String imageName) {
+        String fileName = imageName + ".png";
+        try (InputStream stream = TileAtlas.class.getResourceAsStream("/" + fileName)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("Can't find image " + fileName);
+            }
+            return ImageIO.read(stream);
+        }
+        catch (IOException exception) {
+            throw new IllegalArgumentException("Can't read image " + imageName, exception);
+        }
+    }
+
+    /**
+     * Lazily creates the shared atlas on first access.
+     */
+    private static final class DefaultAtlasHolder {
+        static final TileAtlas INSTANCE = new TileAtlas(DEFAULT_BLOCK_SIZE);
+    }
+}
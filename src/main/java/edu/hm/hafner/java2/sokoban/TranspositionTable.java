@@ -0,0 +1,93 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe table of the best known search node for each visited state. The table is split into stripes that are
+ * selected by the upper bits of the Zobrist key of a state, each stripe is guarded by its own lock. So threads that
+ * insert different states rarely contend for the same lock.
+ *
+ * <p>
+ * For two nodes of the same state the node with fewer pushes wins, if the pushes are equal the node with the
+ * smaller rank wins. Hence the content of the table does not depend on the order in which the nodes are offered.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+final class TranspositionTable {
+    private final Map<SearchNode, SearchNode>[] stripes;
+    private final int mask;
+
+    /**
+     * Creates a new table.
+     *
+     * @param concurrency the expected number of threads that access the table concurrently
+     */
+    @SuppressWarnings("unchecked")
+    TranspositionTable(final int concurrency) {
+        int count = Integer.highestOneBit(Math.max(1, concurrency) * 16 - 1) << 1;
+        stripes = new Map[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new HashMap<>();
+        }
+        mask = count - 1;
+    }
+
+    /**
+     * Returns the best known node for the state of the specified node.
+     *
+     * @param node the node that describes the state
+     * @return the best known node, or {@code null} if the state has not been visited yet
+     */
+    SearchNode get(final SearchNode node) {
+        Map<SearchNode, SearchNode> stripe = getStripe(node);
+        synchronized (stripe) {
+            return stripe.get(node);
+        }
+    }
+
+    /**
+     * Stores the specified node if its state has not been visited yet or if it is better than the known node.
+     *
+     * @param node the node to store
+     * @return {@code true} if the node has been stored, {@code false} if a better node is already known
+     */
+    boolean offer(final SearchNode node) {
+        Map<SearchNode, SearchNode> stripe = getStripe(node);
+        synchronized (stripe) {
+            SearchNode existing = stripe.get(node);
+            if (existing != null && !isBetter(node, existing)) {
+                return false;
+            }
+            stripe.put(node, node);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of visited states.
+     *
+     * @return the number of states
+     */
+    int size() {
+        int size = 0;
+        for (Map<SearchNode, SearchNode> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Map<SearchNode, SearchNode> getStripe(final SearchNode node) {
+        return stripes[(int) (node.getKey() >>> 40) & mask];
+    }
+
+    private static boolean isBetter(final SearchNode node, final SearchNode existing) {
+        if (node.getPushes() != existing.getPushes()) {
+            return node.getPushes() < existing.getPushes();
+        }
+        return node.getRank() < existing.getRank();
+    }
+}
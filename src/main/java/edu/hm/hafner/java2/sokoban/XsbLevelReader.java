@@ -0,0 +1,338 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a collection of Sokoban levels in the XSB text format and creates the levels one at a time. A level consists
+ * of consecutive board lines: {@code #} wall, {@code .} target, {@code $} treasure, {@code *} treasure on target,
+ * {@code @} player, {@code +} player on target and a blank, {@code -} or {@code _} for floor. All other lines, e.g.
+ * titles, comments or empty lines, separate the levels and are skipped. Floor fields that are connected to the
+ * border of the level are outside of the walls, they are converted to {@link Field#BACKGROUND}.
+ *
+ * <p>
+ * The input is read in blocks into a fixed buffer, the lines are split into a reusable line buffer and the rows of
+ * the current level are collected in a reusable row buffer. So no objects are created per line and the memory
+ * consumption depends on the size of the largest level only, not on the size of the collection. Since the levels are
+ * created lazily by {@link #next()}, the reader can be used as source of the {@link SokobanPngExporter}.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public class XsbLevelReader implements Iterator<Sokoban>, Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private char[] line = new char[128];
+    private int lineLength;
+    private int lineNumber;
+
+    private char[] rows = new char[1024];
+    private int[] rowOffsets = new int[64];
+    private int[] rowLengths = new int[64];
+    private int rowCount;
+    private int firstRow;
+    private int levelLine;
+    private int[] queue = new int[1024];
+
+    private boolean isLevelRead;
+
+    /**
+     * Creates a new reader for the specified level collection. The file is decoded as UTF-8, malformed characters
+     * are replaced since they can occur in titles and comments only.
+     *
+     * @param path the file of the collection
+     * @throws IOException if the file can't be opened
+     */
+    public XsbLevelReader(final Path path) throws IOException {
+        this(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a new reader for the specified level collection. The reader is read in blocks, so it does not need to
+     * be buffered.
+     *
+     * @param reader the reader that provides the collection
+     * @throws IllegalArgumentException if the reader is {@code null}
+     */
+    public XsbLevelReader(final Reader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException("Reader must not be null!");
+        }
+        this.reader = reader;
+    }
+
+    /**
+     * Returns whether the specified character may be part of a board line.
+     *
+     * @param character the character
+     * @return {@code true} if the character is a wall, floor, target, treasure or player
+     */
+    static boolean isBoardCharacter(final int character) {
+        switch (character) {
+            case '#':
+            case ' ':
+            case '-':
+            case '_':
+            case '.':
+            case '$':
+            case '*':
+            case '@':
+            case '+':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns whether the specified character is a blank that is ignored at the end of a line.
+     *
+     * @param character the character
+     * @return {@code true} if the character is a space, tab, carriage return or form feed
+     */
+    static boolean isBlank(final int character) {
+        return character == ' ' || character == '\t' || character == '\r' || character == '\f';
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isLevelRead) {
+            try {
+                isLevelRead = readLevel();
+            }
+            catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+        return isLevelRead;
+    }
+
+    /**
+     * Creates the next level of the collection.
+     *
+     * @return the next level, with player and treasures set, but not validated yet
+     * @throws NoSuchElementException   if there are no more levels
+     * @throws IllegalArgumentException if the level does not contain exactly one player
+     * @throws UncheckedIOException     if the collection can't be read
+     */
+    @Override
+    public Sokoban next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more levels available!");
+        }
+        isLevelRead = false;
+
+        return createLevel();
+    }
+
+    /**
+     * Returns the line number of the first row of the level that has been returned by the last call of
+     * {@link #next()}.
+     *
+     * @return the line number, starting with 1
+     */
+    public int getLineNumber() {
+        return levelLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readLevel() throws IOException {
+        rowCount = 0;
+        while (readLine()) {
+            int length = getBoardLength();
+            if (length > 0) {
+                if (rowCount == 0) {
+                    firstRow = lineNumber;
+                }
+                addRow(length);
+            }
+            else if (rowCount > 0) {
+                return true;
+            }
+        }
+        return rowCount > 0;
+    }
+
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean isEmpty = true;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    if (isEmpty) {
+                        return false;
+                    }
+                    break;
+                }
+            }
+            isEmpty = false;
+            char character = buffer[position++];
+            if (character == '\n') {
+                break;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = character;
+        }
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * Returns the length of the current line without trailing blanks if it is a board line, i.e. it consists of
+     * board characters only and contains at least one wall. Otherwise 0 is returned.
+     */
+    private int getBoardLength() {
+        int length = lineLength;
+        while (length > 0 && isBlank(line[length - 1])) {
+            length--;
+        }
+        boolean hasWall = false;
+        for (int i = 0; i < length; i++) {
+            char character = line[i];
+            if (!isBoardCharacter(character)) {
+                return 0;
+            }
+            hasWall |= character == '#';
+        }
+        return hasWall ? length : 0;
+    }
+
+    private void addRow(final int length) {
+        if (rowCount == rowLengths.length) {
+            rowOffsets = Arrays.copyOf(rowOffsets, rowOffsets.length * 2);
+            rowLengths = Arrays.copyOf(rowLengths, rowLengths.length * 2);
+        }
+        int offset = rowCount == 0 ? 0 : rowOffsets[rowCount - 1] + rowLengths[rowCount - 1];
+        if (offset + length > rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(rows.length * 2, offset + length));
+        }
+        System.arraycopy(line, 0, rows, offset, length);
+        rowOffsets[rowCount] = offset;
+        rowLengths[rowCount] = length;
+        rowCount++;
+    }
+
+    private Sokoban createLevel() {
+        levelLine = firstRow;
+        int height = rowCount;
+        int width = 0;
+        for (int y = 0; y < height; y++) {
+            width = Math.max(width, rowLengths[y]);
+        }
+
+        Field[][] fields = new Field[height][width];
+        Point player = null;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                char character = x < rowLengths[y] ? rows[rowOffsets[y] + x] : ' ';
+                fields[y][x] = toField(character);
+                if (character == '@' || character == '+') {
+                    if (player != null) {
+                        throw new IllegalArgumentException(String.format(
+                                "Level at line %d must contain exactly one player!", levelLine));
+                    }
+                    player = Point.valueOf(x, y);
+                }
+            }
+        }
+        if (player == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Level at line %d must contain exactly one player!", levelLine));
+        }
+        markBackground(fields, width, height);
+
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(fields);
+        sokoban.setPlayer(player);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < rowLengths[y]; x++) {
+                char character = rows[rowOffsets[y] + x];
+                if (character == '$' || character == '*') {
+                    sokoban.addTreasure(Point.valueOf(x, y));
+                }
+            }
+        }
+        return sokoban;
+    }
+
+    private Field toField(final char character) {
+        switch (character) {
+            case '#':
+                return Field.WALL;
+            case '.':
+            case '*':
+            case '+':
+                return Field.TARGET;
+            default:
+                return Field.FLOOR;
+        }
+    }
+
+    /**
+     * Converts all floor fields without player or treasure that are connected to the border into background.
+     */
+    private void markBackground(final Field[][] fields, final int width, final int height) {
+        if (queue.length < width * height) {
+            queue = new int[width * height];
+        }
+        int tail = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if ((x == 0 || y == 0 || x == width - 1 || y == height - 1) && isEmptyFloor(fields, x, y)) {
+                    fields[y][x] = Field.BACKGROUND;
+                    queue[tail++] = y * width + x;
+                }
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int x = queue[head] % width;
+            int y = queue[head] / width;
+            for (Orientation orientation : Orientation.values()) {
+                int nextX = x + orientation.getDeltaX();
+                int nextY = y + orientation.getDeltaY();
+                if (nextX >= 0 && nextY >= 0 && nextX < width && nextY < height
+                        && isEmptyFloor(fields, nextX, nextY)) {
+                    fields[nextY][nextX] = Field.BACKGROUND;
+                    queue[tail++] = nextY * width + nextX;
+                }
+            }
+        }
+    }
+
+    private boolean isEmptyFloor(final Field[][] fields, final int x, final int y) {
+        if (fields[y][x] != Field.FLOOR) {
+            return false;
+        }
+        if (x >= rowLengths[y]) {
+            return true;
+        }
+        char character = rows[rowOffsets[y] + x];
+        return character != '@' && character != '$';
+    }
+}
@@ -0,0 +1,136 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Writes a {@link Sokoban} level in the XSB text format: {@code #} wall, {@code .} target, {@code $} treasure,
+ * {@code *} treasure on target, {@code @} player, {@code +} player on target and a blank for floor and background.
+ * Each row is terminated by a line feed and has the full width of the level, so the text of a level always has
+ * {@link #getLength(Sokoban)} characters. The text can be read again by the {@link XsbLevelReader}.
+ *
+ * <p>
+ * The characters are written directly into a character array, so no objects are created per field.
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public final class XsbLevelWriter {
+    private static final char[] CHARACTERS = createCharacters();
+
+    private static final int TREASURE = 1 << 2;
+    private static final int PLAYER = 2 << 2;
+
+    private static char[] createCharacters() {
+        char[] characters = new char[Field.values().length * 3];
+        for (Field field : Field.values()) {
+            boolean isTarget = field == Field.TARGET;
+            characters[field.ordinal()] = field == Field.WALL ? '#' : isTarget ? '.' : ' ';
+            characters[field.ordinal() | TREASURE] = isTarget ? '*' : '$';
+            characters[field.ordinal() | PLAYER] = isTarget ? '+' : '@';
+        }
+        return characters;
+    }
+
+    /**
+     * Returns the number of characters of the text of the specified level.
+     *
+     * @param sokoban the level
+     * @return the number of characters, including the line feeds
+     * @throws IllegalStateException if the level has not been set
+     */
+    public static int getLength(final Sokoban sokoban) {
+        ensureLevel(sokoban);
+
+        return (sokoban.getWidth() + 1) * sokoban.getHeight();
+    }
+
+    /**
+     * Returns the text of the specified level.
+     *
+     * @param sokoban the level
+     * @return the text of the level
+     * @throws IllegalStateException if the level has not been set
+     */
+    public static String toString(final Sokoban sokoban) {
+        char[] text = new char[getLength(sokoban)];
+        write(sokoban, text, 0);
+        return new String(text);
+    }
+
+    /**
+     * Appends the text of the specified level to the specified target. {@link StringBuilder} and {@link Writer}
+     * targets receive the whole text with a single call.
+     *
+     * @param sokoban the level
+     * @param target  the target to append the text to
+     * @throws IOException           if the target can't be written
+     * @throws IllegalStateException if the level has not been set
+     */
+    public static void write(final Sokoban sokoban, final Appendable target) throws IOException {
+        char[] text = new char[getLength(sokoban)];
+        write(sokoban, text, 0);
+        if (target instanceof StringBuilder) {
+            ((StringBuilder) target).append(text);
+        }
+        else if (target instanceof Writer) {
+            ((Writer) target).write(text);
+        }
+        else {
+            target.append(CharBuffer.wrap(text));
+        }
+    }
+
+    /**
+     * Writes the text of the specified level into the specified array.
+     *
+     * @param sokoban the level
+     * @param target  the array to write the text to
+     * @param offset  the index of the first character in the array
+     * @return the number of written characters, see {@link #getLength(Sokoban)}
+     * @throws IllegalStateException    if the level has not been set
+     * @throws IllegalArgumentException if the array has not enough space after the offset
+     */
+    public static int write(final Sokoban sokoban, final char[] target, final int offset) {
+        int length = getLength(sokoban);
+        if (offset < 0 || target.length - offset < length) {
+            throw new IllegalArgumentException(String.format(
+                    "Target must have space for %d characters at offset %d!", length, offset));
+        }
+
+        int width = sokoban.getWidth();
+        int height = sokoban.getHeight();
+        Point player = sokoban.getPlayer();
+        int playerX = player == null ? -1 : player.getX();
+        int playerY = player == null ? -1 : player.getY();
+        int position = offset;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = sokoban.getField(x, y).ordinal();
+                if (sokoban.hasTreasure(x, y)) {
+                    index |= TREASURE;
+                }
+                else if (x == playerX && y == playerY) {
+                    index |= PLAYER;
+                }
+                target[position++] = CHARACTERS[index];
+            }
+            target[position++] = '\n';
+        }
+        return length;
+    }
+
+    private static void ensureLevel(final Sokoban sokoban) {
+        if (sokoban == null) {
+            throw new IllegalArgumentException("Sokoban must not be null!");
+        }
+        if (sokoban.getLevelRevision() == 0) {
+            throw new IllegalStateException("Level must be set!");
+        }
+    }
+
+    private XsbLevelWriter() {
+        // prevents instantiation
+    }
+}
@@ -0,0 +1,78 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for the Zobrist hashing of Sokoban positions. Each cell of a board has one key for a treasure
+ * and one key for the player on that cell. The hash of a position is the XOR of the keys of all occupied cells, so
+ * it can be updated with two XOR operations whenever an object moves. The keys are derived from a seed, hence equal
+ * seeds yield equal hashes.
+ *
+ * @author Julian Wagner
+ */
+final class ZobristKeys {
+    /** Seed that is used if no seed has been specified. */
+    static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+    private final long[] treasureKeys;
+    private final long[] playerKeys;
+
+    /**
+     * Creates new keys for a board with the specified number of cells.
+     *
+     * @param cells the number of cells of the board
+     * @param seed  the seed of the random number generator
+     */
+    ZobristKeys(final int cells, final long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        treasureKeys = new long[cells];
+        playerKeys = new long[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            treasureKeys[cell] = random.nextLong();
+            playerKeys[cell] = random.nextLong();
+        }
+    }
+
+    /**
+     * Returns the number of cells these keys cover.
+     *
+     * @return the number of cells
+     */
+    int size() {
+        return treasureKeys.length;
+    }
+
+    /**
+     * Returns the key of a treasure on the specified cell.
+     *
+     * @param cell the cell index
+     * @return the key
+     */
+    long getTreasureKey(final int cell) {
+        return treasureKeys[cell];
+    }
+
+    /**
+     * Returns the key of the player on the specified cell.
+     *
+     * @param cell the cell index
+     * @return the key
+     */
+    long getPlayerKey(final int cell) {
+        return playerKeys[cell];
+    }
+
+    /**
+     * Returns the hash of the specified treasure cells, without the player.
+     *
+     * @param treasures the treasure cells
+     * @return the hash
+     */
+    long hashTreasures(final int[] treasures) {
+        long hash = 0;
+        for (int treasure : treasures) {
+            hash ^= treasureKeys[treasure];
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,72 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the class {@link DeadlockDetector}.
+ *
+ * @author Julian Wagner
+ */
+public class DeadlockDetectorTest {
+    private static int[] toCells(final SolverBoard board, final Sokoban sokoban) {
+        int[] cells = new int[sokoban.getTreasures().size()];
+        for (int i = 0; i < cells.length; i++) {
+            Point treasure = sokoban.getTreasures().get(i);
+            cells[i] = board.toCell(treasure.getX(), treasure.getY());
+        }
+        return cells;
+    }
+
+    /**
+     * Checks that a block of 2x2 treasures is detected and stored as pattern.
+     */
+    @Test
+    public void shouldDetectFrozenBlockAndCacheIt() {
+        //Given
+        Sokoban sokoban = new XsbLevelReader(new StringReader(
+                "#######\n"
+                + "#     #\n"
+                + "# $$  #\n"
+                + "# $$  #\n"
+                + "#     #\n"
+                + "#....@#\n"
+                + "#######\n")).next();
+        SolverBoard board = new SolverBoard(sokoban);
+        DeadlockDetector detector = new DeadlockDetector(board);
+        int[] treasures = toCells(board, sokoban);
+        int player = board.toCell(5, 5);
+
+        //When
+        boolean isDeadlocked = detector.isDeadlocked(treasures, player, board.toCell(3, 3));
+
+        //Then
+        assertThat(isDeadlocked).isTrue();
+        assertThat(detector.getPatternCount()).isEqualTo(1);
+        assertThat(detector.isDeadlocked(treasures, player, board.toCell(2, 2))).isTrue();
+        assertThat(detector.getPatternHits()).isEqualTo(1);
+    }
+
+    /**
+     * Checks that treasures that can still be moved are not reported.
+     */
+    @Test
+    public void shouldNotReportMovableTreasures() {
+        Sokoban sokoban = new XsbLevelReader(new StringReader(
+                "#######\n"
+                + "#     #\n"
+                + "# $$  #\n"
+                + "#  $  #\n"
+                + "#     #\n"
+                + "#... @#\n"
+                + "#######\n")).next();
+        SolverBoard board = new SolverBoard(sokoban);
+        DeadlockDetector detector = new DeadlockDetector(board);
+
+        assertThat(detector.isDeadlocked(toCells(board, sokoban), board.toCell(5, 5))).isFalse();
+        assertThat(detector.getPatternCount()).isZero();
+    }
+}
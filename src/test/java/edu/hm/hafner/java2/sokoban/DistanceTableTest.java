@@ -0,0 +1,78 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link DistanceTable}.
+ *
+ * @author Julian Wagner
+ */
+public class DistanceTableTest {
+    private static final int WIDTH = 7;
+
+    private static Sokoban createLevel() {
+        return new XsbLevelReader(new StringReader(
+                "#######\n"
+                + "#     #\n"
+                + "# $ . #\n"
+                + "#  $  #\n"
+                + "#   . #\n"
+                + "#    @#\n"
+                + "#######\n")).next();
+    }
+
+    private static int cell(final int x, final int y) {
+        return y * WIDTH + x;
+    }
+
+    /**
+     * Checks the push distances to each target.
+     */
+    @Test
+    public void shouldComputePushDistances() {
+        //Given
+        Sokoban sokoban = createLevel();
+
+        //When
+        DistanceTable table = sokoban.getDistanceTable();
+
+        //Then
+        assertThat(table.getTargetCount()).isEqualTo(2);
+        assertThat(table.getTarget(0)).isEqualTo(cell(4, 2));
+        assertThat(table.getTarget(1)).isEqualTo(cell(4, 4));
+
+        assertThat(table.getDistance(0, cell(4, 2))).isZero();
+        assertThat(table.getDistance(0, cell(2, 2))).isEqualTo(2);
+        assertThat(table.getDistance(1, cell(2, 2))).isEqualTo(4);
+        assertThat(table.getDistance(0, cell(3, 3))).isEqualTo(2);
+        assertThat(table.getMinimumDistance(cell(3, 3))).isEqualTo(2);
+        assertThat(table.getMinimumDistance(cell(4, 3))).isEqualTo(1);
+
+        assertThat(table.getDistance(0, cell(1, 1))).isEqualTo(DistanceTable.UNREACHABLE);
+        assertThat(table.getDistance(1, cell(5, 2))).isEqualTo(DistanceTable.UNREACHABLE);
+        assertThat(table.getMinimumDistance(cell(0, 0))).isEqualTo(DistanceTable.UNREACHABLE);
+    }
+
+    /**
+     * Checks that the table is reused for all positions of a level and recomputed if the level is replaced.
+     */
+    @Test
+    public void shouldReuseTableUntilLevelIsReplaced() {
+        Sokoban sokoban = createLevel();
+        DistanceTable table = sokoban.getDistanceTable();
+
+        sokoban.move(Orientation.UP);
+        sokoban.move(Orientation.LEFT);
+
+        assertThat(sokoban.getDistanceTable()).isSameAs(table);
+
+        sokoban.setLevel(sokoban.getLevel());
+        assertThat(sokoban.getDistanceTable()).isNotSameAs(table);
+        assertThatThrownBy(() -> new Sokoban().getDistanceTable()).isInstanceOf(IllegalStateException.class);
+    }
+}
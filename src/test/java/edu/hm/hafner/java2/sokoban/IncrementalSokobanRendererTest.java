@@ -0,0 +1,127 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the class {@link IncrementalSokobanRenderer}.
+ *
+ * @author Julian Wagner
+ */
+public class IncrementalSokobanRendererTest {
+    private static final int BLOCK_SIZE = 4;
+
+    /**
+     * Checks that the first render pass draws the whole level and an unchanged level draws nothing.
+     */
+    @Test
+    public void shouldRenderWholeLevelFirst() {
+        //Given
+        IncrementalSokobanRenderer renderer = new IncrementalSokobanRenderer(
+                new SokobanImageRenderer(TileAtlasTest.createAtlas(BLOCK_SIZE)));
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+
+        //When
+        Rectangle first = renderer.render(sokoban, Orientation.DOWN);
+        BufferedImage image = renderer.getImage();
+        Rectangle second = renderer.render(sokoban, Orientation.DOWN);
+
+        //Then
+        assertThat(first).isEqualTo(new Rectangle(0, 0, 8 * BLOCK_SIZE, 9 * BLOCK_SIZE));
+        assertThat(second.isEmpty()).isTrue();
+        assertThat(renderer.getImage()).isSameAs(image);
+    }
+
+    /**
+     * Checks that a push repaints only the changed fields and produces the same image as a full render pass.
+     */
+    @Test
+    public void shouldRepaintOnlyChangedFields() {
+        //Given
+        TileAtlas atlas = TileAtlasTest.createAtlas(BLOCK_SIZE);
+        IncrementalSokobanRenderer renderer = new IncrementalSokobanRenderer(new SokobanImageRenderer(atlas));
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+        renderer.render(sokoban, Orientation.DOWN);
+
+        //When
+        sokoban.setPlayer(Point.valueOf(3, 5));
+        sokoban.removeTreasure(Point.valueOf(4, 5));
+        sokoban.addTreasure(Point.valueOf(5, 5));
+        Rectangle dirty = renderer.render(sokoban, Orientation.RIGHT);
+
+        //Then
+        assertThat(dirty).isEqualTo(new Rectangle(3 * BLOCK_SIZE, 4 * BLOCK_SIZE, 3 * BLOCK_SIZE, 2 * BLOCK_SIZE));
+        BufferedImage expected = new SokobanImageRenderer(atlas).toImage(sokoban, Orientation.RIGHT);
+        assertThat(SokobanImageRendererTest.isPixelIdentical(expected, renderer.getImage())).isTrue();
+    }
+
+    /**
+     * Checks that an invalidated renderer draws the whole level again.
+     */
+    @Test
+    public void shouldRenderWholeLevelAfterInvalidate() {
+        IncrementalSokobanRenderer renderer = new IncrementalSokobanRenderer(
+                new SokobanImageRenderer(TileAtlasTest.createAtlas(BLOCK_SIZE)));
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+        renderer.render(sokoban, Orientation.DOWN);
+
+        renderer.invalidate();
+
+        assertThat(renderer.render(sokoban, Orientation.DOWN).getWidth()).isEqualTo(8 * BLOCK_SIZE);
+    }
+
+    /**
+     * Checks that a new level with the same size is drawn completely.
+     */
+    @Test
+    public void shouldRenderWholeLevelAfterNewLevelOfSameSize() {
+        //Given
+        TileAtlas atlas = TileAtlasTest.createAtlas(BLOCK_SIZE);
+        IncrementalSokobanRenderer renderer = new IncrementalSokobanRenderer(new SokobanImageRenderer(atlas));
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+        renderer.render(sokoban, Orientation.DOWN);
+
+        //When
+        Field[][] floor = new Field[9][8];
+        for (Field[] line : floor) {
+            Arrays.fill(line, Field.FLOOR);
+        }
+        sokoban.setLevel(floor);
+        Rectangle dirty = renderer.render(sokoban, Orientation.DOWN);
+
+        //Then
+        assertThat(dirty).isEqualTo(new Rectangle(0, 0, 8 * BLOCK_SIZE, 9 * BLOCK_SIZE));
+        BufferedImage expected = new SokobanImageRenderer(atlas).toImage(sokoban, Orientation.DOWN);
+        assertThat(SokobanImageRendererTest.isPixelIdentical(expected, renderer.getImage())).isTrue();
+    }
+
+    /**
+     * Checks that a player or treasure outside of the level is skipped.
+     */
+    @Test
+    public void shouldSkipPositionsOutsideOfLevel() {
+        //Given
+        TileAtlas atlas = TileAtlasTest.createAtlas(BLOCK_SIZE);
+        IncrementalSokobanRenderer renderer = new IncrementalSokobanRenderer(new SokobanImageRenderer(atlas));
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+        renderer.render(sokoban, Orientation.DOWN);
+
+        //When
+        sokoban.setPlayer(Point.valueOf(20, 4));
+        sokoban.addTreasure(Point.valueOf(3, 30));
+        Rectangle dirty = renderer.render(sokoban, Orientation.DOWN);
+
+        //Then
+        assertThat(dirty).isEqualTo(new Rectangle(3 * BLOCK_SIZE, 4 * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE));
+        BufferedImage expected = new SokobanImageRenderer(atlas).toImage(sokoban, Orientation.DOWN);
+        assertThat(SokobanImageRendererTest.isPixelIdentical(expected, renderer.getImage())).isTrue();
+
+        renderer.invalidate();
+        assertThat(renderer.render(sokoban, Orientation.DOWN).getWidth()).isEqualTo(8 * BLOCK_SIZE);
+    }
+}
@@ -0,0 +1,143 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link IndexedLevelCollection}.
+ *
+ * @author Julian Wagner
+ */
+public class IndexedLevelCollectionTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Checks that each level is decoded in the same way as by the sequential reader and that the index is persisted.
+     *
+     * @throws IOException if the collection can't be written
+     */
+    @Test
+    public void shouldDecodeLevelsInAnyOrder() throws IOException {
+        //Given
+        String text = createCollection(50);
+        Path path = write(text);
+
+        //When
+        IndexedLevelCollection collection = new IndexedLevelCollection(path);
+
+        //Then
+        List<String> expected = readAll(text);
+        assertThat(collection.size()).isEqualTo(150);
+        assertThat(IndexedLevelCollection.getIndexPath(path)).exists();
+        for (int level : new int[]{149, 0, 57, 1, 42, 98}) {
+            assertThat(describe(collection.getLevel(level))).as("Level %d", level).isEqualTo(expected.get(level));
+        }
+
+        IndexedLevelCollection reopened = new IndexedLevelCollection(path);
+        assertThat(reopened.size()).isEqualTo(150);
+        assertThat(describe(reopened.getLevel(33))).isEqualTo(expected.get(33));
+
+        assertThatThrownBy(() -> collection.getLevel(150)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> collection.getLevel(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Checks that the index is rebuilt if the collection has been changed.
+     *
+     * @throws IOException if the collection can't be written
+     */
+    @Test
+    public void shouldRebuildOutdatedIndex() throws IOException {
+        Path path = write(createCollection(3));
+        assertThat(new IndexedLevelCollection(path).size()).isEqualTo(9);
+
+        String text = createCollection(5);
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 2000));
+
+        IndexedLevelCollection collection = new IndexedLevelCollection(path);
+        assertThat(collection.size()).isEqualTo(15);
+        assertThat(describe(collection.getLevel(9))).isEqualTo(readAll(text).get(9));
+
+        Files.write(IndexedLevelCollection.getIndexPath(path), new byte[]{1, 2, 3});
+        assertThat(new IndexedLevelCollection(path).size()).isEqualTo(15);
+        assertThat(new IndexedLevelCollection(write("")).size()).isZero();
+    }
+
+    /**
+     * Checks that the index is kept in memory if the index file can't be written and that the collection can't be
+     * used after closing.
+     *
+     * @throws IOException if the collection can't be written
+     */
+    @Test
+    public void shouldKeepIndexInMemoryIfIndexCanNotBeWritten() throws IOException {
+        //Given
+        String text = createCollection(2);
+        Path path = write(text);
+        Path indexPath = IndexedLevelCollection.getIndexPath(path);
+        Files.createDirectory(indexPath);
+        Files.createFile(indexPath.resolve("blocker"));
+
+        //When
+        IndexedLevelCollection collection = new IndexedLevelCollection(path);
+
+        //Then
+        assertThat(collection.size()).isEqualTo(6);
+        assertThat(describe(collection.getLevel(4))).isEqualTo(readAll(text).get(4));
+        assertThat(indexPath).isDirectory();
+
+        collection.close();
+        collection.close();
+        assertThatThrownBy(() -> collection.getLevel(0)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private String createCollection(final int copies) {
+        StringBuilder collection = new StringBuilder();
+        for (int i = 0; i < copies; i++) {
+            collection.append("Copy ").append(i).append(" äöü\n").append(XsbLevelReaderTest.COLLECTION);
+            collection.append("\n########\n#@ $ . #\n########\n");
+        }
+        return collection.toString();
+    }
+
+    private Path write(final String text) throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private List<String> readAll(final String text) {
+        List<String> levels = new ArrayList<>();
+        XsbLevelReader reader = new XsbLevelReader(new StringReader(text));
+        while (reader.hasNext()) {
+            levels.add(describe(reader.next()));
+        }
+        return levels;
+    }
+
+    private String describe(final Sokoban sokoban) {
+        StringBuilder description = new StringBuilder();
+        for (int y = 0; y < sokoban.getHeight(); y++) {
+            for (int x = 0; x < sokoban.getWidth(); x++) {
+                description.append(sokoban.getField(Point.valueOf(x, y)).ordinal());
+            }
+            description.append('\n');
+        }
+        return description.append(sokoban.getPlayer()).append(sokoban.getTreasures()).toString();
+    }
+}
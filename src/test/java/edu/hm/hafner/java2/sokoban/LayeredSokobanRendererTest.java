@@ -0,0 +1,61 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the class {@link LayeredSokobanRenderer}.
+ *
+ * @author Julian Wagner
+ */
+public class LayeredSokobanRendererTest {
+    private static final int BLOCK_SIZE = 4;
+
+    /**
+     * Checks that moved sprites are composited onto the cached terrain and that the result matches a full render.
+     */
+    @Test
+    public void shouldReuseTerrainForMovedSprites() {
+        //Given
+        TileAtlas atlas = TileAtlasTest.createAtlas(BLOCK_SIZE);
+        LayeredSokobanRenderer renderer = new LayeredSokobanRenderer(new SokobanImageRenderer(atlas));
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+        BufferedImage first = renderer.toImage(sokoban, Orientation.DOWN);
+        BufferedImage terrain = renderer.getTerrain();
+
+        //When
+        sokoban.setPlayer(Point.valueOf(3, 5));
+        sokoban.removeTreasure(Point.valueOf(4, 5));
+        sokoban.addTreasure(Point.valueOf(5, 5));
+        BufferedImage second = renderer.toImage(sokoban, Orientation.RIGHT);
+
+        //Then
+        assertThat(second).isSameAs(first);
+        assertThat(renderer.getTerrain()).isSameAs(terrain);
+        BufferedImage expected = new SokobanImageRenderer(atlas).toImage(sokoban, Orientation.RIGHT);
+        assertThat(SokobanImageRendererTest.isPixelIdentical(expected, second)).isTrue();
+    }
+
+    /**
+     * Checks that the terrain is rendered again if the level has been replaced.
+     */
+    @Test
+    public void shouldRenderTerrainAgainForNewLevel() {
+        //Given
+        TileAtlas atlas = TileAtlasTest.createAtlas(BLOCK_SIZE);
+        LayeredSokobanRenderer renderer = new LayeredSokobanRenderer(new SokobanImageRenderer(atlas));
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+        renderer.toImage(sokoban, Orientation.DOWN);
+
+        //When
+        Sokoban other = SokobanImageRendererTest.createSokoban();
+        BufferedImage image = renderer.toImage(other, Orientation.UP);
+
+        //Then
+        BufferedImage expected = new SokobanImageRenderer(atlas).toImage(other, Orientation.UP);
+        assertThat(SokobanImageRendererTest.isPixelIdentical(expected, image)).isTrue();
+    }
+}
@@ -0,0 +1,120 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the class {@link MinimumCostMatching}.
+ *
+ * @author Julian Wagner
+ */
+public class MinimumCostMatchingTest {
+    private static final int ROUNDS = 200;
+
+    /**
+     * Compares complete solutions of random cost matrices with the cheapest permutation.
+     */
+    @Test
+    public void shouldFindMinimumCostMatching() {
+        Random random = new Random(4711);
+        for (int round = 0; round < ROUNDS; round++) {
+            int size = 1 + random.nextInt(6);
+            int[][] costs = createCosts(random, size);
+            MinimumCostMatching matching = createMatching(costs);
+
+            assertThat(matching.solve()).as("Round %d", round).isEqualTo(findMinimum(costs));
+        }
+    }
+
+    /**
+     * Checks that incremental updates of single rows give the same result as complete solutions, also if alternative
+     * updates are evaluated based on a saved solution.
+     */
+    @Test
+    public void shouldUpdateSingleRows() {
+        Random random = new Random(815);
+        for (int round = 0; round < ROUNDS; round++) {
+            int size = 1 + random.nextInt(6);
+            int[][] costs = createCosts(random, size);
+            MinimumCostMatching matching = createMatching(costs);
+            int solved = matching.solve();
+
+            matching.save();
+            for (int update = 0; update < 5; update++) {
+                int row = random.nextInt(size);
+                int[] previous = costs[row].clone();
+                setRow(random, matching, costs, row);
+
+                assertThat(matching.update(row)).as("Round %d", round).isEqualTo(findMinimum(costs));
+
+                costs[row] = previous;
+                for (int column = 0; column < size; column++) {
+                    matching.setCost(row, column, previous[column]);
+                }
+                matching.restore();
+                assertThat(matching.getTotal()).isEqualTo(solved);
+            }
+
+            for (int update = 0; update < 5; update++) {
+                int row = random.nextInt(size);
+                setRow(random, matching, costs, row);
+
+                assertThat(matching.update(row)).as("Round %d", round).isEqualTo(findMinimum(costs));
+            }
+        }
+    }
+
+    private int[][] createCosts(final Random random, final int size) {
+        int[][] costs = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                costs[row][column] = createCost(random);
+            }
+        }
+        return costs;
+    }
+
+    private int createCost(final Random random) {
+        return random.nextInt(10) == 0 ? DistanceTable.UNREACHABLE : random.nextInt(50);
+    }
+
+    private void setRow(final Random random, final MinimumCostMatching matching, final int[][] costs, final int row) {
+        for (int column = 0; column < costs.length; column++) {
+            costs[row][column] = createCost(random);
+            matching.setCost(row, column, costs[row][column]);
+        }
+    }
+
+    private MinimumCostMatching createMatching(final int[][] costs) {
+        MinimumCostMatching matching = new MinimumCostMatching(costs.length);
+        for (int row = 0; row < costs.length; row++) {
+            for (int column = 0; column < costs.length; column++) {
+                matching.setCost(row, column, costs[row][column]);
+            }
+        }
+        return matching;
+    }
+
+    private int findMinimum(final int[][] costs) {
+        return (int) Math.min(findMinimum(costs, 0, new boolean[costs.length]), MinimumCostMatching.INFINITE);
+    }
+
+    private long findMinimum(final int[][] costs, final int row, final boolean[] used) {
+        if (row == costs.length) {
+            return 0;
+        }
+        long minimum = Long.MAX_VALUE;
+        for (int column = 0; column < costs.length; column++) {
+            if (!used[column]) {
+                used[column] = true;
+                long cost = Math.min(costs[row][column], MinimumCostMatching.INFINITE);
+                minimum = Math.min(minimum, cost + findMinimum(costs, row + 1, used));
+                used[column] = false;
+            }
+        }
+        return minimum;
+    }
+}
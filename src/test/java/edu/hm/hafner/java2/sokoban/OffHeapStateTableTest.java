@@ -0,0 +1,91 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link OffHeapStateTable}.
+ *
+ * @author Julian Wagner
+ */
+public class OffHeapStateTableTest {
+    private static final int CELLS = 1000;
+    private static final int STATES = 20_000;
+
+    /** Provides the spill directory. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SearchNode createNode(final int index, final int pushes) {
+        int[] treasures = {index % CELLS, index / CELLS + CELLS / 2};
+        int player = index % 7;
+        return new SearchNode(treasures, player, 0, index * 0x9E3779B97F4A7C15L, null, pushes, 0, -1, -1, 0);
+    }
+
+    /**
+     * Checks that the table stores the minimal number of pushes of each state and grows when required.
+     */
+    @Test
+    public void shouldStoreStatesInDirectMemory() {
+        try (OffHeapStateTable table = new OffHeapStateTable(2, CELLS, 64L << 20, null)) {
+            assertThatTableStoresStates(table);
+        }
+    }
+
+    /**
+     * Checks that the table stores the states in a memory-mapped file that is deleted when the table is closed. On
+     * some platforms the file is unlinked as soon as it has been opened, so only the state after closing is checked.
+     *
+     * @throws IOException if the temporary folder could not be created
+     */
+    @Test
+    public void shouldSpillStatesToFile() throws IOException {
+        File directory = folder.newFolder();
+        try (OffHeapStateTable table = new OffHeapStateTable(2, CELLS, 64L << 20, directory.toPath())) {
+            assertThatTableStoresStates(table);
+        }
+        assertThat(directory.list()).isEmpty();
+    }
+
+    private void assertThatTableStoresStates(final OffHeapStateTable table) {
+        for (int i = 0; i < STATES; i++) {
+            assertThat(table.offer(createNode(i, 10))).isTrue();
+        }
+        assertThat(table.size()).isEqualTo(STATES);
+        assertThat(table.capacity()).isGreaterThan(STATES);
+
+        assertThat(table.offer(createNode(42, 10))).isFalse();
+        assertThat(table.offer(createNode(42, 11))).isFalse();
+        assertThat(table.offer(createNode(42, 3))).isTrue();
+        assertThat(table.size()).isEqualTo(STATES);
+
+        assertThat(table.get(createNode(42, 0))).isEqualTo(3);
+        assertThat(table.get(createNode(4711, 0))).isEqualTo(10);
+        assertThat(table.get(createNode(STATES, 0))).isEqualTo(OffHeapStateTable.ABSENT);
+    }
+
+    /**
+     * Checks that the table reports that it is full if the maximum size has been reached.
+     */
+    @Test
+    public void shouldStopGrowingAtMaximumSize() {
+        try (OffHeapStateTable table = new OffHeapStateTable(2, CELLS, 100_000, null)) {
+            int count = 0;
+            while (!table.isFull()) {
+                table.offer(createNode(count++, 1));
+            }
+
+            assertThat(table.getByteSize()).isLessThanOrEqualTo(100_000);
+            assertThat(table.size()).isEqualTo(count);
+        }
+        assertThatThrownBy(() -> new OffHeapStateTable(2, CELLS, 1000, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link ParallelSokobanRenderer}.
+ *
+ * @author Julian Wagner
+ */
+public class ParallelSokobanRendererTest {
+    private static final int BLOCK_SIZE = 4;
+
+    /**
+     * Checks that the parallel renderer creates the same pixels as the sequential renderer.
+     */
+    @Test
+    public void shouldCreateSameImageAsSequentialRenderer() {
+        //Given
+        SokobanImageRenderer sequential = new SokobanImageRenderer(TileAtlasTest.createAtlas(BLOCK_SIZE));
+        Sokoban sokoban = createRandomLevel(53, 71);
+
+        try (ParallelSokobanRenderer parallel = new ParallelSokobanRenderer(sequential, 3)) {
+            //When
+            BufferedImage image = parallel.toImage(sokoban, Orientation.UP);
+            BufferedImage reused = parallel.toImage(sokoban, Orientation.UP, image);
+
+            //Then
+            assertThat(parallel.getParallelism()).isEqualTo(3);
+            assertThat(reused).isSameAs(image);
+            assertThat(SokobanImageRendererTest.isPixelIdentical(
+                    sequential.toImage(sokoban, Orientation.UP), image)).isTrue();
+        }
+    }
+
+    /**
+     * Checks that a subimage of a larger image is drawn at its position within the shared pixels.
+     */
+    @Test
+    public void shouldDrawIntoSubimage() {
+        //Given
+        SokobanImageRenderer sequential = new SokobanImageRenderer(TileAtlasTest.createAtlas(BLOCK_SIZE));
+        Sokoban sokoban = createRandomLevel(11, 7);
+        int width = sokoban.getWidth() * BLOCK_SIZE;
+        int height = sokoban.getHeight() * BLOCK_SIZE;
+        BufferedImage canvas = new BufferedImage(width + 10, height + 6, BufferedImage.TYPE_INT_RGB);
+        BufferedImage target = canvas.getSubimage(7, 5, width, height);
+
+        try (ParallelSokobanRenderer parallel = new ParallelSokobanRenderer(sequential, 2)) {
+            //When
+            BufferedImage image = parallel.toImage(sokoban, Orientation.DOWN, target);
+
+            //Then
+            assertThat(image).isSameAs(target);
+            BufferedImage expected = sequential.toImage(sokoban, Orientation.DOWN);
+            for (int y = 0; y < canvas.getHeight(); y++) {
+                for (int x = 0; x < canvas.getWidth(); x++) {
+                    boolean isInside = x >= 7 && y >= 5 && x < 7 + width && y < 5 + height;
+                    assertThat(canvas.getRGB(x, y) & 0xFFFFFF)
+                            .isEqualTo(isInside ? expected.getRGB(x - 7, y - 5) & 0xFFFFFF : 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the player on top of a treasure is composited in the same order as in the sequential renderer.
+     */
+    @Test
+    public void shouldDrawTreasureOverPlayer() {
+        SokobanImageRenderer sequential = new SokobanImageRenderer(TileAtlasTest.createAtlas(BLOCK_SIZE));
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+        sokoban.addTreasure(sokoban.getPlayer());
+
+        try (ParallelSokobanRenderer parallel = new ParallelSokobanRenderer(sequential, 2)) {
+            assertThat(SokobanImageRendererTest.isPixelIdentical(
+                    sequential.toImage(sokoban, Orientation.LEFT), parallel.toImage(sokoban, Orientation.LEFT)))
+                    .isTrue();
+        }
+    }
+
+    /**
+     * Checks that the parallelism must be positive.
+     */
+    @Test
+    public void shouldRejectInvalidParallelism() {
+        assertThatThrownBy(() -> new ParallelSokobanRenderer(
+                new SokobanImageRenderer(TileAtlasTest.createAtlas(BLOCK_SIZE)), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Sokoban createRandomLevel(final int width, final int height) {
+        Random random = new Random(42);
+        Field[] fields = Field.values();
+        Field[][] level = new Field[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                level[y][x] = fields[random.nextInt(fields.length)];
+            }
+        }
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(level);
+        sokoban.setPlayer(Point.valueOf(width / 2, height / 2));
+        for (int i = 0; i < 100; i++) {
+            sokoban.addTreasure(Point.valueOf(random.nextInt(width), random.nextInt(height)));
+        }
+        return sokoban;
+    }
+}
@@ -0,0 +1,59 @@
+package edu.hm.hafner.java2.sokoban;
+
+/**
+ * Measures the throughput of the {@link ParallelSokobanSolver} in expanded nodes per second for 1, 2, 4 and 8
+ * threads. Each configuration solves the first level of the XSokoban collection several times, the first runs warm up
+ * the JIT. The sequential {@link SokobanSolver} is measured as baseline. Note that the speedup can't exceed the
+ * number of available processors.
+ *
+ * <p>
+ * Usage: {@code ParallelSokobanSolverBenchmark [runs]}
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public final class ParallelSokobanSolverBenchmark {
+    private static final int WARM_UP_RUNS = 2;
+    private static final int[] THREADS = {1, 2, 4, 8};
+
+    private ParallelSokobanSolverBenchmark() {
+        // prevents instantiation
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the number of measured runs per configuration (default 3)
+     */
+    public static void main(final String[] args) {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Sokoban sokoban = SokobanSolverTest.createXSokobanFirst();
+        System.out.printf("Available processors: %d%n", Runtime.getRuntime().availableProcessors());
+
+        SokobanSolver sequential = new SokobanSolver();
+        double baseline = 0;
+        for (int run = 0; run < WARM_UP_RUNS + runs; run++) {
+            Solution solution = sequential.solve(sokoban);
+            if (run >= WARM_UP_RUNS) {
+                baseline = Math.max(baseline, solution.getNodesPerSecond());
+            }
+        }
+        System.out.printf("Sequential: %.0f nodes/s%n", baseline);
+
+        for (int threads : THREADS) {
+            try (ParallelSokobanSolver solver = new ParallelSokobanSolver(threads, ZobristKeys.DEFAULT_SEED,
+                    SokobanSolver.DEFAULT_NODE_LIMIT)) {
+                double best = 0;
+                Solution solution = null;
+                for (int run = 0; run < WARM_UP_RUNS + runs; run++) {
+                    solution = solver.solve(sokoban);
+                    if (run >= WARM_UP_RUNS) {
+                        best = Math.max(best, solution.getNodesPerSecond());
+                    }
+                }
+                System.out.printf("%d threads: %d pushes, %d nodes, %.0f nodes/s, speedup %.2f%n",
+                        threads, solution.getPushCount(), solution.getExpandedNodes(), best, best / baseline);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package edu.hm.hafner.java2.sokoban;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link ParallelSokobanSolver}.
+ *
+ * @author Julian Wagner
+ */
+public class ParallelSokobanSolverTest {
+    /**
+     * Checks that the parallel solver finds a solution with the same number of pushes as the sequential solver.
+     */
+    @Test
+    public void shouldFindOptimalSolution() {
+        //Given
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+        Solution expected = new SokobanSolver().solve(sokoban);
+
+        //When
+        Solution solution;
+        try (ParallelSokobanSolver solver = new ParallelSokobanSolver(4, 42, SokobanSolver.DEFAULT_NODE_LIMIT)) {
+            solution = solver.solve(sokoban);
+        }
+
+        //Then
+        assertThat(solution.getPushCount()).isEqualTo(expected.getPushCount());
+        SokobanSolverTest.assertThatSolutionSolves(sokoban, solution);
+    }
+
+    /**
+     * Checks that repeated runs with the same seed and parallelism yield the same solution and statistics.
+     */
+    @Test
+    public void shouldBeDeterministic() {
+        try (ParallelSokobanSolver solver = new ParallelSokobanSolver(3, 7, SokobanSolver.DEFAULT_NODE_LIMIT)) {
+            Solution first = solver.solve(SokobanImageRendererTest.createSokoban());
+
+            for (int i = 0; i < 10; i++) {
+                Solution next = solver.solve(SokobanImageRendererTest.createSokoban());
+
+                assertThat(next.getMoves()).isEqualTo(first.getMoves());
+                assertThat(next.getExpandedNodes()).isEqualTo(first.getExpandedNodes());
+                assertThat(next.getGeneratedNodes()).isEqualTo(first.getGeneratedNodes());
+            }
+        }
+    }
+
+    /**
+     * Checks that a search with many equal states in the same batch yields the same statistics in every run.
+     */
+    @Test
+    public void shouldBeDeterministicForLargeBatches() {
+        Sokoban sokoban = SokobanSolverTest.createXSokobanFirst();
+        try (ParallelSokobanSolver solver = new ParallelSokobanSolver(4, 7, SokobanSolver.DEFAULT_NODE_LIMIT)) {
+            Solution first = solver.solve(sokoban);
+
+            for (int i = 0; i < 2; i++) {
+                Solution next = solver.solve(sokoban);
+
+                assertThat(next.getMoves()).isEqualTo(first.getMoves());
+                assertThat(next.getExpandedNodes()).isEqualTo(first.getExpandedNodes());
+                assertThat(next.getGeneratedNodes()).isEqualTo(first.getGeneratedNodes());
+            }
+            assertThat(first.getPushCount()).isEqualTo(97);
+        }
+    }
+
+    /**
+     * Checks that the search stops if the node limit has been reached.
+     */
+    @Test
+    public void shouldStopAtNodeLimit() {
+        try (ParallelSokobanSolver solver = new ParallelSokobanSolver(2, 1, 1)) {
+            Solution solution = solver.solve(SokobanImageRendererTest.createSokoban());
+
+            assertThat(solution.isSolved()).isFalse();
+            assertThat(solution.isLimitReached()).isTrue();
+            assertThat(solution.getExpandedNodes()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Checks that invalid arguments are rejected.
+     */
+    @Test
+    public void shouldRejectInvalidArguments() {
+        assertThatThrownBy(() -> new ParallelSokobanSolver(0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ParallelSokobanSolver(1, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -3,6 +3,7 @@ package edu.hm.hafner.java2.sokoban;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Tests the class {@link PointSet}.
@@ -145,6 +146,94 @@ public class PointSetTest {
     }
 
 
+    /**
+     * Checks that points outside of the level are stored without enlarging the grid.
+     */
+    @Test
+    public void shouldStorePointsOutsideOfLevel() {
+        //Given
+        PointSet points = new PointSet(3, 2);
+        points.add(new Point(1, 1));
+
+        //When
+        points.add(new Point(10, 20));
+        points.add(new Point(2, 0));
+
+        //Then
+        assertThat(points.contains(new Point(1, 1))).isTrue();
+        assertThat(points.contains(new Point(10, 20))).isTrue();
+        assertThat(points.contains(new Point(2, 0))).isTrue();
+        assertThat(points.contains(new Point(0, 1))).isFalse();
+        assertThat(points.contains(new Point(30, 1))).isFalse();
+        assertThat(points.toString()).isEqualTo("[(1, 1), (10, 20), (2, 0)]");
+
+        points.add(new Point(60000, 60000));
+        points.add(new Point(Integer.MAX_VALUE - 1, 0));
+        assertThat(points.contains(new Point(60000, 60000))).isTrue();
+        assertThat(points.remove(new Point(10, 20))).isTrue();
+        assertThat(points.contains(new Point(10, 20))).isFalse();
+        assertThat(points.contains(new Point(Integer.MAX_VALUE - 1, 0))).isTrue();
+        assertThat(points.size()).isEqualTo(4);
+    }
+
+    /**
+     * Checks that a grid with more cells than an array can hold is rejected.
+     */
+    @Test
+    public void shouldRejectTooLargeGrid() {
+        assertThatThrownBy(() -> new PointSet(70000, 70000)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Checks that the order of the remaining points is preserved if points are removed and added again.
+     */
+    @Test
+    public void shouldPreserveOrderAfterRemove() {
+        //Given
+        PointSet points = new PointSet(8, 8);
+        for (int i = 0; i < 20; i++) {
+            points.add(new Point(i % 8, i / 8));
+        }
+
+        //When
+        points.remove(new Point(0, 0));
+        points.remove(new Point(3, 1));
+        points.add(new Point(0, 0));
+
+        //Then
+        assertThat(points.size()).isEqualTo(19);
+        assertThat(points.get(0).isEqualTo(new Point(1, 0))).isTrue();
+        assertThat(points.get(10).isEqualTo(new Point(4, 1))).isTrue();
+        assertThat(points.get(18).isEqualTo(new Point(0, 0))).isTrue();
+        assertThat(points.contains(new Point(3, 1))).isFalse();
+        assertThat(new PointSet(points).contains(new Point(0, 0))).isTrue();
+    }
+
+    /**
+     * Checks that sets with the same points are equal, regardless of the order of the points.
+     */
+    @Test
+    public void shouldBeEqualIfPointsAreEqual() {
+        //Given
+        PointSet points = new PointSet();
+        points.add(new Point(1, 2));
+        points.add(new Point(20, 3));
+        PointSet other = new PointSet(30, 30);
+        other.add(new Point(20, 3));
+        other.add(new Point(1, 2));
+
+        //Then
+        assertThat(points).isEqualTo(other);
+        assertThat(points.hashCode()).isEqualTo(other.hashCode());
+        assertThat(points).isEqualTo(new PointSet(points));
+
+        other.add(new Point(2, 1));
+        assertThat(points).isNotEqualTo(other);
+        other.remove(new Point(1, 2));
+        assertThat(points).isNotEqualTo(other);
+        assertThat(points).isNotEqualTo(null);
+    }
+
     /**
      * Checks that copy constructor throws NullPointException
      */
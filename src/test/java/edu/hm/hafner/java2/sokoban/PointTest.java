@@ -32,6 +32,8 @@ public class PointTest {
     @Test
     public void shouldBeEqual() {
         assertThat(new Point(5, 2).isEqualTo(new Point(5, 2))).isTrue();
+        assertThat(new Point(5, 2)).isEqualTo(new Point(5, 2));
+        assertThat(new Point(5, 2).hashCode()).isEqualTo(new Point(5, 2).hashCode());
     }
 
     /**
@@ -41,6 +43,8 @@ public class PointTest {
     public void shouldNotBeEqual() {
         assertThat(new Point(5, 3).isEqualTo(new Point(3, 5))).isFalse();
         assertThat(new Point(5, 2).isEqualTo(null)).isFalse();
+        assertThat(new Point(5, 3)).isNotEqualTo(new Point(3, 5));
+        assertThat(new Point(5, 3)).isNotEqualTo("(5, 3)");
     }
 
     /**
@@ -61,6 +65,29 @@ public class PointTest {
         assertThat(orgPoint.toString()).isEqualTo("(5, 7)");
     }
 
+    /**
+     * Checks that points within the maximum board size are interned.
+     */
+    @Test
+    public void shouldReturnCachedInstances() {
+        //Given
+        Point point = Point.valueOf(5, 7);
+
+        //Then
+        assertThat(Point.valueOf(5, 7)).isSameAs(point);
+        assertThat(point.moveLeft()).isSameAs(Point.valueOf(4, 7));
+        assertThat(point.moveRight().moveLeft()).isSameAs(point);
+        assertThat(point.moveUp().moveDown()).isSameAs(point);
+        assertThat(point.isEqualTo(new Point(5, 7))).isTrue();
+
+        int outside = Point.DEFAULT_CACHE_SIZE + 1;
+        assertThat(Point.valueOf(outside, 1)).isNotSameAs(Point.valueOf(outside, 1));
+        assertThat(Point.valueOf(outside, 1).isEqualTo(Point.valueOf(outside, 1))).isTrue();
+        assertThatThrownBy(() -> {
+            Point.valueOf(-1, 2);
+        }).isInstanceOf(IllegalArgumentException.class).hasMessage("Point (-1, 2) is out of bounds!");
+    }
+
     /**
     * Checks if method throws IllegalArgumentExceptions
     */
@@ -0,0 +1,100 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link Reachability}.
+ *
+ * @author Julian Wagner
+ */
+public class ReachabilityTest {
+    /**
+     * Checks that the region is bounded by walls and treasures and that all possible pushes are found.
+     */
+    @Test
+    public void shouldComputeRegionAndPushes() {
+        //Given
+        Sokoban sokoban = new XsbLevelReader(new StringReader(
+                "######\n"
+                + "#  # #\n"
+                + "#$$$.#\n"
+                + "#  @.#\n"
+                + "#   .#\n"
+                + "######\n")).next();
+
+        //When
+        Reachability reachability = sokoban.computeReachability();
+
+        //Then
+        assertThat(reachability.getRegionSize()).isEqualTo(10);
+        assertThat(reachability.getTopLeftCell()).isEqualTo(6 + 4);
+        assertThat(reachability.isReachable(3, 3)).isTrue();
+        assertThat(reachability.isReachable(1, 4)).isTrue();
+        assertThat(reachability.isReachable(1, 1)).isFalse();
+        assertThat(reachability.isReachable(4, 1)).isTrue();
+        assertThat(reachability.isReachable(3, 2)).isFalse();
+        assertThat(reachability.isReachable(-1, 2)).isFalse();
+
+        assertThat(reachability.getPushCount()).isEqualTo(2);
+        assertThat(reachability.getPushCell(0)).isEqualTo(2 * 6 + 2);
+        assertThat(reachability.getPushDirection(0)).isEqualTo(Orientation.UP);
+        assertThat(reachability.getPushCell(1)).isEqualTo(2 * 6 + 1);
+        assertThat(reachability.getPushDirection(1)).isEqualTo(Orientation.UP);
+        assertThatThrownBy(() -> reachability.getPushCell(2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> reachability.getRegionCell(10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Checks that the same instance is reused and updated after a push.
+     */
+    @Test
+    public void shouldReuseInstanceForEachComputation() {
+        Sokoban sokoban = new XsbLevelReader(new StringReader(
+                "######\n"
+                + "#  # #\n"
+                + "#$$$.#\n"
+                + "#  @.#\n"
+                + "#   .#\n"
+                + "######\n")).next();
+        Reachability first = sokoban.computeReachability();
+
+        sokoban.move(Orientation.LEFT);
+        sokoban.move(Orientation.UP);
+        Reachability second = sokoban.computeReachability();
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.isReachable(1, 1)).isFalse();
+        assertThat(second.isReachable(2, 2)).isTrue();
+        assertThat(second.getRegionSize()).isEqualTo(11);
+        assertThat(second.getPushCount()).isEqualTo(3);
+        assertThatThrownBy(() -> new Sokoban().computeReachability()).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Checks that computing the normalized hash does not overwrite the result of the last computation.
+     */
+    @Test
+    public void shouldNotBeOverwrittenByNormalizedHash() {
+        Sokoban sokoban = new XsbLevelReader(new StringReader(
+                "######\n"
+                + "#  # #\n"
+                + "#$$$.#\n"
+                + "#  @.#\n"
+                + "#   .#\n"
+                + "######\n")).next();
+        Reachability reachability = sokoban.computeReachability();
+
+        sokoban.move(Orientation.LEFT);
+        sokoban.move(Orientation.UP);
+        sokoban.getNormalizedHash();
+
+        assertThat(reachability.getRegionSize()).isEqualTo(10);
+        assertThat(reachability.getPushCount()).isEqualTo(2);
+        assertThat(reachability.isReachable(2, 2)).isFalse();
+    }
+}
@@ -0,0 +1,79 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+/**
+ * Compares the size and the throughput of the {@link SokobanBinaryFormat} with the text form of a level. The text
+ * form is created by {@link Sokoban#toString()} and read by the {@link XsbLevelReader}.
+ *
+ * <p>
+ * Usage: {@code SokobanBinaryFormatBenchmark [width] [height] [iterations]}
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public final class SokobanBinaryFormatBenchmark {
+    private static final int RUNS = 5;
+
+    private SokobanBinaryFormatBenchmark() {
+        // prevents instantiation
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the width (default 60) and height (default 40) of the level and the number of iterations per run
+     *             (default 20000)
+     */
+    public static void main(final String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        Sokoban level = SokobanBinaryFormatTest.createLargeLevel(width, height, 1);
+        String text = level.toString();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SokobanBinaryFormat.getMaximumSize(level));
+        int size = SokobanBinaryFormat.write(level, buffer);
+        System.out.printf("Level %d x %d: text %d bytes, binary %d bytes (%.1f%%)%n",
+                width, height, text.length(), size, size * 100.0 / text.length());
+
+        for (int run = 0; run < RUNS; run++) {
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                checksum += level.toString().length();
+            }
+            long textWrite = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                checksum += new XsbLevelReader(new StringReader(text)).next().getWidth();
+            }
+            long textRead = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                buffer.clear();
+                checksum += SokobanBinaryFormat.write(level, buffer);
+            }
+            long binaryWrite = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                buffer.flip();
+                checksum += SokobanBinaryFormat.read(buffer).getWidth();
+            }
+            long binaryRead = System.nanoTime() - start;
+
+            System.out.printf("Run %d: text write %.0f/s, text read %.0f/s, binary write %.0f/s, "
+                            + "binary read %.0f/s (checksum %d)%n", run, perSecond(iterations, textWrite),
+                    perSecond(iterations, textRead), perSecond(iterations, binaryWrite),
+                    perSecond(iterations, binaryRead), checksum);
+        }
+    }
+
+    private static double perSecond(final int iterations, final long nanos) {
+        return iterations * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,160 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.StringReader;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link SokobanBinaryFormat}.
+ *
+ * @author Julian Wagner
+ */
+public class SokobanBinaryFormatTest {
+    /**
+     * Creates a large level with long runs of background and walls and random fields inside.
+     *
+     * @param width  the width of the level
+     * @param height the height of the level
+     * @param seed   the seed of the random fields
+     * @return the level
+     */
+    static Sokoban createLargeLevel(final int width, final int height, final long seed) {
+        Random random = new Random(seed);
+        Field[][] fields = new Field[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (y < 2 || x < 3 || x > width - 4) {
+                    fields[y][x] = Field.BACKGROUND;
+                }
+                else if (y == 2 || y == height - 1 || x == 3 || x == width - 4) {
+                    fields[y][x] = Field.WALL;
+                }
+                else {
+                    fields[y][x] = random.nextInt(4) == 0 ? Field.TARGET : Field.FLOOR;
+                }
+            }
+        }
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(fields);
+        sokoban.setPlayer(Point.valueOf(4, 3));
+        for (int i = 0; i < width; i++) {
+            sokoban.addTreasure(Point.valueOf(4 + random.nextInt(width - 8), 3 + random.nextInt(height - 4)));
+        }
+        return sokoban;
+    }
+
+    /**
+     * Checks that fields, player and treasures are restored.
+     */
+    @Test
+    public void shouldRestoreLevels() {
+        //Given
+        List<Sokoban> levels = new ArrayList<>();
+        XsbLevelReader reader = new XsbLevelReader(new StringReader(XsbLevelReaderTest.COLLECTION));
+        while (reader.hasNext()) {
+            levels.add(reader.next());
+        }
+        Sokoban large = createLargeLevel(200, 60, 1);
+        assertThat(SokobanBinaryFormat.toBytes(large).length).isLessThan(200 * 60 / 3);
+        levels.add(large);
+        levels.add(createLargeLevel(9, 5, 2));
+
+        for (Sokoban level : levels) {
+            //When
+            byte[] bytes = SokobanBinaryFormat.toBytes(level);
+            Sokoban copy = SokobanBinaryFormat.read(ByteBuffer.wrap(bytes));
+
+            //Then
+            assertThatLevelsAreEqual(copy, level);
+            assertThat(bytes.length).isLessThan((level.getWidth() + 1) * level.getHeight());
+            assertThat(bytes.length).isLessThanOrEqualTo(SokobanBinaryFormat.getMaximumSize(level));
+        }
+    }
+
+    /**
+     * Checks that several levels are written one after another into the same buffer and read back in place.
+     */
+    @Test
+    public void shouldWriteSeveralLevelsIntoBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        List<Sokoban> levels = new ArrayList<>();
+        int size = 0;
+        for (int i = 0; i < 20; i++) {
+            Sokoban level = createLargeLevel(10 + i * 7, 6 + i, i);
+            levels.add(level);
+            size += SokobanBinaryFormat.write(level, buffer);
+        }
+        assertThat(buffer.position()).isEqualTo(size);
+
+        buffer.flip();
+        for (Sokoban level : levels) {
+            assertThatLevelsAreEqual(SokobanBinaryFormat.read(buffer), level);
+        }
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    /**
+     * Checks that invalid levels and buffers are rejected.
+     */
+    @Test
+    public void shouldRejectInvalidInput() {
+        Sokoban level = createLargeLevel(12, 8, 3);
+        byte[] bytes = SokobanBinaryFormat.toBytes(level);
+
+        assertThatThrownBy(() -> SokobanBinaryFormat.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        bytes[0] = 42;
+        assertThatThrownBy(() -> SokobanBinaryFormat.read(ByteBuffer.wrap(bytes)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("42");
+        ByteBuffer hostile = ByteBuffer.allocate(16).put((byte) SokobanBinaryFormat.VERSION);
+        hostile.put(new byte[]{(byte) 0xC0, (byte) 0xB8, 0x02, (byte) 0xC0, (byte) 0xB8, 0x02, (byte) 0xFF, 0});
+        hostile.flip();
+        assertThatThrownBy(() -> SokobanBinaryFormat.read(hostile))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("40000 x 40000");
+        assertThatThrownBy(() -> SokobanBinaryFormat.write(level, ByteBuffer.allocate(8)))
+                .isInstanceOf(BufferOverflowException.class);
+        assertThatThrownBy(() -> SokobanBinaryFormat.toBytes(new Sokoban()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> SokobanBinaryFormat.toBytes(null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Checks that a player or treasure outside of the level is rejected before anything is written.
+     */
+    @Test
+    public void shouldRejectPositionsOutsideOfLevel() {
+        Sokoban level = createLargeLevel(12, 8, 4);
+        ByteBuffer buffer = ByteBuffer.allocate(SokobanBinaryFormat.getMaximumSize(level) + 8);
+
+        level.setPlayer(Point.valueOf(12, 3));
+        assertThatThrownBy(() -> SokobanBinaryFormat.write(level, buffer))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("(12, 3)");
+        level.setPlayer(Point.valueOf(4, 3));
+        level.addTreasure(Point.valueOf(5, 8));
+        assertThatThrownBy(() -> SokobanBinaryFormat.write(level, buffer))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("(5, 8)");
+        assertThat(buffer.position()).isZero();
+    }
+
+    private void assertThatLevelsAreEqual(final Sokoban actual, final Sokoban expected) {
+        assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+        assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Point point = Point.valueOf(x, y);
+                assertThat(actual.getField(point)).as("Field %s", point).isEqualTo(expected.getField(point));
+            }
+        }
+        assertThat(actual.getPlayer()).isEqualTo(expected.getPlayer());
+        assertThat(actual.getTreasures()).isEqualTo(expected.getTreasures());
+    }
+}
@@ -0,0 +1,112 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import static edu.hm.hafner.java2.sokoban.Field.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the class {@link SokobanImageRenderer}.
+ *
+ * @author Julian Wagner
+ */
+public class SokobanImageRendererTest {
+    private static final int BLOCK_SIZE = 4;
+
+    /**
+     * Creates a small valid level with the player at (3, 4) and treasures at (2, 4) and (4, 5).
+     *
+     * @return the level
+     */
+    static Sokoban createSokoban() {
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(new Field[][]{
+                {BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND},
+                {BACKGROUND, WALL, WALL, WALL, WALL, BACKGROUND, BACKGROUND, BACKGROUND},
+                {BACKGROUND, WALL, FLOOR, TARGET, WALL, BACKGROUND, BACKGROUND, BACKGROUND},
+                {BACKGROUND, WALL, FLOOR, FLOOR, WALL, WALL, WALL, BACKGROUND},
+                {BACKGROUND, WALL, TARGET, FLOOR, FLOOR, FLOOR, WALL, BACKGROUND},
+                {BACKGROUND, WALL, FLOOR, FLOOR, FLOOR, FLOOR, WALL, BACKGROUND},
+                {BACKGROUND, WALL, FLOOR, FLOOR, WALL, WALL, WALL, BACKGROUND},
+                {BACKGROUND, WALL, WALL, WALL, WALL, BACKGROUND, BACKGROUND, BACKGROUND},
+                {BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND, BACKGROUND}
+        });
+        sokoban.setPlayer(Point.valueOf(3, 4));
+        sokoban.addTreasure(Point.valueOf(2, 4));
+        sokoban.addTreasure(Point.valueOf(4, 5));
+        sokoban.validate();
+        return sokoban;
+    }
+
+    /**
+     * Returns whether the specified images contain the same pixels.
+     *
+     * @param expected the expected image
+     * @param actual   the actual image
+     * @return {@code true} if both images are equal
+     */
+    static boolean isPixelIdentical(final BufferedImage expected, final BufferedImage actual) {
+        if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            return false;
+        }
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the fields, the player and the treasures are drawn at the right positions.
+     */
+    @Test
+    public void shouldDrawLevel() {
+        //Given
+        TileAtlas atlas = TileAtlasTest.createAtlas(BLOCK_SIZE);
+        SokobanImageRenderer renderer = new SokobanImageRenderer(atlas);
+
+        //When
+        BufferedImage image = renderer.toImage(createSokoban(), Orientation.DOWN);
+
+        //Then
+        assertThat(image.getWidth()).isEqualTo(8 * BLOCK_SIZE);
+        assertThat(image.getHeight()).isEqualTo(9 * BLOCK_SIZE);
+        assertThat(pixelAt(image, 1, 1)).isEqualTo(atlas.getTile(WALL).getRGB(0, 0));
+        assertThat(pixelAt(image, 3, 2)).isEqualTo(atlas.getTile(TARGET).getRGB(0, 0));
+        int center = BLOCK_SIZE - 1;
+        assertThat(image.getRGB(3 * BLOCK_SIZE + center, 4 * BLOCK_SIZE + center))
+                .isEqualTo(atlas.getTile(Orientation.DOWN).getRGB(center, center));
+        assertThat(image.getRGB(4 * BLOCK_SIZE + center, 5 * BLOCK_SIZE + center))
+                .isEqualTo(atlas.getTile(TileAtlas.TREASURE).getRGB(center, center));
+    }
+
+    /**
+     * Checks that a compatible target image is reused and an incompatible one is replaced.
+     */
+    @Test
+    public void shouldReuseCompatibleTarget() {
+        //Given
+        SokobanImageRenderer renderer = new SokobanImageRenderer(TileAtlasTest.createAtlas(BLOCK_SIZE));
+        Sokoban sokoban = createSokoban();
+        BufferedImage first = renderer.toImage(sokoban, Orientation.LEFT);
+
+        //When
+        BufferedImage second = renderer.toImage(sokoban, Orientation.LEFT, first);
+        BufferedImage third = renderer.toImage(sokoban, Orientation.LEFT, new BufferedImage(1, 1,
+                BufferedImage.TYPE_INT_RGB));
+
+        //Then
+        assertThat(second).isSameAs(first);
+        assertThat(third).isNotSameAs(first);
+        assertThat(isPixelIdentical(first, third)).isTrue();
+    }
+
+    private int pixelAt(final BufferedImage image, final int x, final int y) {
+        return image.getRGB(x * BLOCK_SIZE, y * BLOCK_SIZE);
+    }
+}
@@ -0,0 +1,103 @@
+package edu.hm.hafner.java2.sokoban;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the class {@link SokobanPngExporter}.
+ *
+ * @author Julian Wagner
+ */
+public class SokobanPngExporterTest {
+    private static final int BLOCK_SIZE = 2;
+    private static final int PENDING = 3;
+
+    /** Folder for the exported images. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Checks that all levels are written as PNG files into the directory.
+     *
+     * @throws IOException if the export fails
+     */
+    @Test
+    public void shouldExportLevelsIntoDirectory() throws IOException {
+        try (SokobanPngExporter exporter = createExporter()) {
+            int count = exporter.export(new LevelSource(7, new AtomicInteger()),
+                    SokobanPngExporter.toDirectory(folder.getRoot().toPath()));
+
+            assertThat(count).isEqualTo(7);
+            assertThat(folder.getRoot().list()).hasSize(7);
+            BufferedImage image = ImageIO.read(new File(folder.getRoot(), "level-00006.png"));
+            assertThat(image.getWidth()).isEqualTo(8 * BLOCK_SIZE);
+            assertThat(image.getHeight()).isEqualTo(9 * BLOCK_SIZE);
+        }
+    }
+
+    /**
+     * Checks that the exporter requests new levels only if a pending level has been written.
+     *
+     * @throws IOException if the export fails
+     */
+    @Test
+    public void shouldLimitPendingLevels() throws IOException {
+        AtomicInteger written = new AtomicInteger();
+        LevelSource source = new LevelSource(50, written);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (SokobanPngExporter exporter = createExporter()) {
+            SokobanPngExporter.PngTarget stream = SokobanPngExporter.toStream(bytes);
+            int count = exporter.export(source, index -> {
+                assertThat(index).isEqualTo(written.getAndIncrement());
+                return stream.open(index);
+            });
+
+            assertThat(count).isEqualTo(50);
+            assertThat(source.maximumInFlight).isLessThanOrEqualTo(PENDING);
+            assertThat(bytes.size()).isGreaterThan(50 * 8);
+        }
+    }
+
+    private SokobanPngExporter createExporter() {
+        return new SokobanPngExporter(TileAtlasTest.createAtlas(BLOCK_SIZE), 2, PENDING);
+    }
+
+    /**
+     * Creates the levels on demand and records how many levels have been requested but not yet written.
+     */
+    private static class LevelSource implements Iterator<Sokoban> {
+        private final int size;
+        private final AtomicInteger written;
+        private int requested;
+        private int maximumInFlight;
+
+        LevelSource(final int size, final AtomicInteger written) {
+            this.size = size;
+            this.written = written;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return requested < size;
+        }
+
+        @Override
+        public Sokoban next() {
+            requested++;
+            maximumInFlight = Math.max(maximumInFlight, requested - written.get());
+            return SokobanImageRendererTest.createSokoban();
+        }
+    }
+}
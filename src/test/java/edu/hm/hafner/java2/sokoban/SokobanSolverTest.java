@@ -0,0 +1,190 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static edu.hm.hafner.java2.sokoban.Field.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link SokobanSolver}.
+ *
+ * @author Julian Wagner
+ */
+public class SokobanSolverTest {
+    /** Provides the spill directory. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Creates the level "Chicken" with two treasures on targets and one treasure that needs to be moved.
+     *
+     * @return the level
+     */
+    static Sokoban createChicken() {
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(new Field[][]{
+                {WALL, WALL, WALL, WALL, WALL, WALL},
+                {WALL, FLOOR, FLOOR, FLOOR, FLOOR, WALL},
+                {WALL, FLOOR, WALL, FLOOR, FLOOR, WALL},
+                {WALL, FLOOR, TARGET, TARGET, FLOOR, WALL},
+                {WALL, FLOOR, FLOOR, TARGET, FLOOR, WALL},
+                {WALL, FLOOR, FLOOR, FLOOR, FLOOR, WALL},
+                {WALL, WALL, WALL, WALL, WALL, WALL}
+        });
+        sokoban.setPlayer(Point.valueOf(3, 2));
+        sokoban.addTreasure(Point.valueOf(3, 3));
+        sokoban.addTreasure(Point.valueOf(2, 4));
+        sokoban.addTreasure(Point.valueOf(3, 4));
+        return sokoban;
+    }
+
+    /**
+     * Creates the first level of the XSokoban collection. The optimal solution requires 97 pushes, the search visits
+     * several thousand states.
+     *
+     * @return the level
+     */
+    static Sokoban createXSokobanFirst() {
+        return new XsbLevelReader(new StringReader("    #####\n"
+                + "    #   #\n"
+                + "    #$  #\n"
+                + "  ###  $##\n"
+                + "  #  $ $ #\n"
+                + "### # ## #   ######\n"
+                + "#   # ## #####  ..#\n"
+                + "# $  $          ..#\n"
+                + "##### ### #@##  ..#\n"
+                + "    #     #########\n"
+                + "    #######\n")).next();
+    }
+
+    /**
+     * Replays the moves of the solution on the specified level and checks that the level is solved afterwards.
+     *
+     * @param sokoban  the level
+     * @param solution the solution
+     */
+    static void assertThatSolutionSolves(final Sokoban sokoban, final Solution solution) {
+        assertThat(solution.isSolved()).isTrue();
+        int pushes = 0;
+        for (Orientation orientation : solution.getMoves()) {
+            MoveResult result = sokoban.move(orientation);
+            assertThat(result.hasMoved()).isTrue();
+            if (result == MoveResult.PUSHED) {
+                pushes++;
+            }
+        }
+        assertThat(pushes).isEqualTo(solution.getPushCount());
+        assertThat(sokoban.isSolved()).isTrue();
+    }
+
+    /**
+     * Checks that a simple level is solved with the minimal number of pushes.
+     */
+    @Test
+    public void shouldSolveLevelWithMinimalPushes() {
+        //Given
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+
+        //When
+        Solution solution = new SokobanSolver().solve(sokoban);
+
+        //Then
+        assertThat(solution.getPushCount()).isEqualTo(8);
+        assertThat(solution.getExpandedNodes()).isPositive();
+        assertThat(solution.getGeneratedNodes()).isGreaterThanOrEqualTo(solution.getExpandedNodes());
+        assertThat(solution.toString()).startsWith("Solved");
+        assertThatSolutionSolves(sokoban, solution);
+    }
+
+    /**
+     * Checks that the visited states can be stored in a memory-mapped file.
+     *
+     * @throws IOException if the temporary folder could not be created
+     */
+    @Test
+    public void shouldSolveWithSpillFile() throws IOException {
+        Sokoban sokoban = SokobanImageRendererTest.createSokoban();
+
+        Solution solution = new SokobanSolver(SokobanSolver.DEFAULT_NODE_LIMIT, 1 << 20,
+                folder.newFolder().toPath()).solve(sokoban);
+
+        assertThat(solution.getPushCount()).isEqualTo(8);
+        assertThatSolutionSolves(sokoban, solution);
+    }
+
+    /**
+     * Checks that the memory-mapped state table grows during a larger search and that all spill files are removed
+     * afterwards.
+     *
+     * @throws IOException if the temporary folder could not be created
+     */
+    @Test
+    public void shouldGrowSpillFileDuringSearch() throws IOException {
+        Sokoban sokoban = createXSokobanFirst();
+        File directory = folder.newFolder();
+
+        Solution solution = new SokobanSolver(SokobanSolver.DEFAULT_NODE_LIMIT, SokobanSolver.DEFAULT_TABLE_SIZE,
+                directory.toPath()).solve(sokoban);
+
+        assertThat(solution.getPushCount()).isEqualTo(97);
+        assertThat(solution.getExpandedNodes()).isGreaterThan(4096);
+        assertThat(directory.list()).isEmpty();
+        assertThatSolutionSolves(sokoban, solution);
+    }
+
+    /**
+     * Checks that the level "Chicken" is solved.
+     */
+    @Test
+    public void shouldSolveChicken() {
+        Sokoban sokoban = createChicken();
+
+        Solution solution = new SokobanSolver().solve(sokoban);
+
+        assertThat(solution.getPushCount()).isEqualTo(1);
+        assertThatSolutionSolves(sokoban, solution);
+    }
+
+    /**
+     * Checks that a level with a treasure in a corner is not solvable.
+     */
+    @Test
+    public void shouldDetectUnsolvableLevel() {
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(new Field[][]{
+                {WALL, WALL, WALL, WALL, WALL},
+                {WALL, FLOOR, FLOOR, TARGET, WALL},
+                {WALL, FLOOR, FLOOR, FLOOR, WALL},
+                {WALL, WALL, WALL, WALL, WALL}
+        });
+        sokoban.setPlayer(Point.valueOf(2, 2));
+        sokoban.addTreasure(Point.valueOf(1, 1));
+
+        Solution solution = new SokobanSolver().solve(sokoban);
+
+        assertThat(solution.isSolved()).isFalse();
+        assertThat(solution.isLimitReached()).isFalse();
+        assertThat(solution.getMoves()).isEmpty();
+    }
+
+    /**
+     * Checks that the search stops if the node limit has been reached.
+     */
+    @Test
+    public void shouldStopAtNodeLimit() {
+        Solution solution = new SokobanSolver(1).solve(SokobanImageRendererTest.createSokoban());
+
+        assertThat(solution.isSolved()).isFalse();
+        assertThat(solution.isLimitReached()).isTrue();
+        assertThatThrownBy(() -> new SokobanSolver(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SokobanSolver(1, 0, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
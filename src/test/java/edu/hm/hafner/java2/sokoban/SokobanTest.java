@@ -1,5 +1,10 @@
 package edu.hm.hafner.java2.sokoban;
 
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
 
 import static edu.hm.hafner.java2.sokoban.Field.*;
@@ -70,7 +75,7 @@ public class SokobanTest {
                 " # .#   \n" +
                 " # $### \n" +
                 " #.@  # \n" +
-                " #   $# \n" +
+                " #  $ # \n" +
                 " #  ### \n" +
                 " ####   \n" +
                 "        \n");
@@ -394,4 +399,415 @@ public class SokobanTest {
             sokoban.validate();
         }).isInstanceOf(IllegalArgumentException.class);
     }
+
+    /**
+     * Checks that the player walks, pushes treasures and is blocked by walls and treasures.
+     */
+    @Test
+    public void shouldMovePlayerAndPushTreasures() {
+        //Given
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(LEVEL);
+        sokoban.setPlayer(new Point(3, 4));
+        sokoban.addTreasure(new Point(3, 3));
+        sokoban.addTreasure(new Point(2, 5));
+        sokoban.validate();
+
+        //Then
+        assertThat(sokoban.move(Orientation.UP)).isEqualTo(MoveResult.PUSHED);
+        assertThat(sokoban.getTreasures().toString()).isEqualTo("[(3, 2), (2, 5)]");
+        assertThat(sokoban.move(Orientation.UP)).isEqualTo(MoveResult.BLOCKED);
+        assertThat(sokoban.move(Orientation.RIGHT)).isEqualTo(MoveResult.BLOCKED);
+        assertThat(sokoban.isSolved()).isFalse();
+
+        assertThat(sokoban.move(Orientation.DOWN)).isEqualTo(MoveResult.WALKED);
+        assertThat(sokoban.move(Orientation.DOWN)).isEqualTo(MoveResult.WALKED);
+        assertThat(sokoban.move(Orientation.LEFT)).isEqualTo(MoveResult.BLOCKED);
+        assertThat(sokoban.move(Orientation.DOWN)).isEqualTo(MoveResult.WALKED);
+        assertThat(sokoban.move(Orientation.LEFT)).isEqualTo(MoveResult.WALKED);
+        assertThat(sokoban.move(Orientation.LEFT)).isEqualTo(MoveResult.BLOCKED);
+        assertThat(sokoban.getPlayer().toString()).isEqualTo("(2, 6)");
+
+        assertThat(sokoban.move(Orientation.UP)).isEqualTo(MoveResult.PUSHED);
+        assertThat(sokoban.getTreasures().toString()).isEqualTo("[(3, 2), (2, 4)]");
+        assertThat(sokoban.isSolved()).isTrue();
+    }
+
+    /**
+     * Checks that corners and fields that can't be pushed to a target are dead squares.
+     */
+    @Test
+    public void shouldComputeDeadSquares() {
+        //Given
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(LEVEL);
+        sokoban.setPlayer(new Point(3, 4));
+        sokoban.addTreasure(new Point(3, 3));
+        sokoban.addTreasure(new Point(2, 5));
+
+        //When
+        sokoban.validate();
+
+        //Then
+        assertThat(sokoban.isDeadSquare(new Point(2, 2))).isTrue();
+        assertThat(sokoban.isDeadSquare(new Point(2, 6))).isTrue();
+        assertThat(sokoban.isDeadSquare(new Point(3, 6))).isTrue();
+        assertThat(sokoban.isDeadSquare(new Point(5, 4))).isTrue();
+        assertThat(sokoban.isDeadSquare(new Point(5, 5))).isTrue();
+
+        assertThat(sokoban.isDeadSquare(new Point(3, 2))).isFalse();
+        assertThat(sokoban.isDeadSquare(new Point(2, 4))).isFalse();
+        assertThat(sokoban.isDeadSquare(new Point(3, 3))).isFalse();
+        assertThat(sokoban.isDeadSquare(new Point(4, 4))).isFalse();
+        assertThat(sokoban.isDeadSquare(new Point(1, 1))).isFalse();
+        assertThat(sokoban.isDeadSquare(new Point(0, 0))).isFalse();
+
+        assertThatThrownBy(() -> sokoban.isDeadSquare(new Point(8, 0))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Sokoban().isDeadSquare(new Point(0, 0)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Checks that pushing a treasure into a frozen position is detected as deadlock.
+     */
+    @Test
+    public void shouldDetectFreezeDeadlockAfterPush() {
+        //Given
+        Sokoban sokoban = new XsbLevelReader(new StringReader(
+                "########\n"
+                + "#   #  #\n"
+                + "# $$   #\n"
+                + "# $  $@#\n"
+                + "#      #\n"
+                + "#....  #\n"
+                + "########\n")).next();
+        assertThat(sokoban.isDeadlocked()).isFalse();
+
+        //When
+        sokoban.move(Orientation.LEFT);
+        sokoban.move(Orientation.LEFT);
+
+        //Then
+        assertThat(sokoban.isDeadlocked()).isTrue();
+        sokoban.undo();
+        assertThat(sokoban.isDeadlocked()).isFalse();
+    }
+
+    /**
+     * Checks that treasures next to each other along a wall are detected as deadlock.
+     */
+    @Test
+    public void shouldDetectTreasuresBlockingEachOtherAtWall() {
+        Sokoban sokoban = new XsbLevelReader(new StringReader(
+                "#######\n"
+                + "# $$ .#\n"
+                + "#     #\n"
+                + "#    .#\n"
+                + "#    @#\n"
+                + "#######\n")).next();
+
+        assertThat(sokoban.isDeadlocked()).isTrue();
+    }
+
+    /**
+     * Checks that an empty target that is enclosed by frozen treasures is detected as deadlock.
+     */
+    @Test
+    public void shouldDetectClosedCorral() {
+        Sokoban sokoban = new XsbLevelReader(new StringReader(
+                "########\n"
+                + "#.*#   #\n"
+                + "#**    #\n"
+                + "##  $  #\n"
+                + "#     @#\n"
+                + "########\n")).next();
+        sokoban.validate();
+
+        assertThat(sokoban.isDeadlocked()).isTrue();
+        assertThat(SokobanImageRendererTest.createSokoban().isDeadlocked()).isFalse();
+        assertThatThrownBy(() -> new Sokoban().isDeadlocked()).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Checks that the hash is updated on every move and is equal for equal positions.
+     */
+    @Test
+    public void shouldUpdateHashIncrementally() {
+        //Given
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(LEVEL);
+        sokoban.setPlayer(new Point(3, 4));
+        sokoban.addTreasure(new Point(3, 3));
+        sokoban.addTreasure(new Point(2, 5));
+        long start = sokoban.getHash();
+
+        //When
+        sokoban.move(Orientation.UP);
+        long pushed = sokoban.getHash();
+        sokoban.move(Orientation.DOWN);
+
+        //Then
+        assertThat(pushed).isNotEqualTo(start);
+        assertThat(sokoban.getHash()).isNotEqualTo(pushed).isNotEqualTo(start);
+
+        Sokoban other = new Sokoban();
+        other.setLevel(LEVEL);
+        other.addTreasure(new Point(2, 5));
+        other.addTreasure(new Point(3, 2));
+        other.setPlayer(new Point(3, 4));
+        assertThat(other.getHash()).isEqualTo(sokoban.getHash());
+
+        sokoban.undo();
+        sokoban.undo();
+        assertThat(sokoban.getHash()).isEqualTo(start);
+        assertThatThrownBy(() -> new Sokoban().getHash()).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Checks that removing a treasure updates the hash, the solved state and the positions of the remaining
+     * treasures.
+     */
+    @Test
+    public void shouldUpdateIndexWhenTreasureIsRemoved() {
+        //Given
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(LEVEL);
+        sokoban.setPlayer(new Point(3, 4));
+        sokoban.addTreasure(new Point(2, 4));
+        sokoban.addTreasure(new Point(2, 5));
+        sokoban.addTreasure(new Point(3, 3));
+
+        //When
+        sokoban.removeTreasure(new Point(2, 5));
+
+        //Then
+        Sokoban other = new Sokoban();
+        other.setLevel(LEVEL);
+        other.setPlayer(new Point(3, 4));
+        other.addTreasure(new Point(2, 4));
+        other.addTreasure(new Point(3, 3));
+        assertThat(sokoban.getHash()).isEqualTo(other.getHash());
+        assertThat(sokoban.isSolved()).isFalse();
+
+        assertThat(sokoban.move(Orientation.UP)).isEqualTo(MoveResult.PUSHED);
+        assertThat(sokoban.getTreasures().toString()).isEqualTo("[(2, 4), (3, 2)]");
+        assertThat(sokoban.isSolved()).isTrue();
+
+        sokoban.removeTreasure(new Point(2, 4));
+        assertThat(sokoban.isSolved()).isTrue();
+        assertThat(sokoban.move(Orientation.LEFT)).isEqualTo(MoveResult.WALKED);
+    }
+
+    /**
+     * Checks that the normalized hash does not change if the player walks but changes if a treasure is pushed.
+     */
+    @Test
+    public void shouldNormalizeHashByReachableRegion() {
+        //Given
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(LEVEL);
+        sokoban.setPlayer(new Point(3, 4));
+        sokoban.addTreasure(new Point(3, 3));
+        sokoban.addTreasure(new Point(2, 5));
+        long start = sokoban.getNormalizedHash();
+
+        //When
+        sokoban.move(Orientation.RIGHT);
+        sokoban.move(Orientation.DOWN);
+
+        //Then
+        assertThat(sokoban.getNormalizedHash()).isEqualTo(start);
+        assertThat(sokoban.getHash()).isNotEqualTo(start);
+
+        Sokoban other = new Sokoban();
+        other.setLevel(LEVEL);
+        other.addTreasure(new Point(3, 3));
+        other.addTreasure(new Point(2, 5));
+        other.setPlayer(new Point(2, 6));
+        assertThat(other.getNormalizedHash()).isEqualTo(start);
+
+        sokoban.move(Orientation.LEFT);
+        sokoban.move(Orientation.UP);
+        sokoban.move(Orientation.UP);
+        assertThat(sokoban.getNormalizedHash()).isNotEqualTo(start);
+    }
+
+    /**
+     * Checks that the number of treasures on targets is updated if treasures are added and removed.
+     */
+    @Test
+    public void shouldUpdateSolvedStateForAddedAndRemovedTreasures() {
+        Sokoban sokoban = new Sokoban();
+        sokoban.addTreasure(new Point(3, 2));
+        sokoban.setLevel(LEVEL);
+        sokoban.setPlayer(new Point(2, 2));
+        assertThat(sokoban.isSolved()).isTrue();
+
+        sokoban.addTreasure(new Point(3, 3));
+        assertThat(sokoban.isSolved()).isFalse();
+        sokoban.addTreasure(new Point(20, 20));
+        sokoban.removeTreasure(new Point(3, 3));
+        assertThat(sokoban.isSolved()).isFalse();
+        sokoban.removeTreasure(new Point(20, 20));
+        assertThat(sokoban.isSolved()).isTrue();
+
+        assertThat(sokoban.move(Orientation.RIGHT)).isEqualTo(MoveResult.BLOCKED);
+        assertThat(sokoban.isSolved()).isTrue();
+        assertThatThrownBy(() -> new Sokoban().move(Orientation.UP)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> sokoban.move(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Checks that moves can be taken back and made again.
+     */
+    @Test
+    public void shouldUndoAndRedoMoves() {
+        //Given
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(LEVEL);
+        sokoban.setPlayer(new Point(3, 4));
+        sokoban.addTreasure(new Point(3, 3));
+        sokoban.addTreasure(new Point(2, 5));
+
+        //When
+        sokoban.move(Orientation.UP);
+        sokoban.move(Orientation.UP);
+        sokoban.move(Orientation.DOWN);
+
+        //Then
+        assertThat(sokoban.getMoveCount()).isEqualTo(2);
+        assertThat(sokoban.undo()).isTrue();
+        assertThat(sokoban.getPlayer().toString()).isEqualTo("(3, 3)");
+        assertThat(sokoban.undo()).isTrue();
+        assertThat(sokoban.getPlayer().toString()).isEqualTo("(3, 4)");
+        assertThat(sokoban.getTreasures().toString()).isEqualTo("[(3, 3), (2, 5)]");
+        assertThat(sokoban.isSolved()).isFalse();
+        assertThat(sokoban.undo()).isFalse();
+
+        assertThat(sokoban.redo()).isTrue();
+        assertThat(sokoban.getTreasures().toString()).isEqualTo("[(3, 2), (2, 5)]");
+        assertThat(sokoban.move(Orientation.LEFT)).isEqualTo(MoveResult.WALKED);
+        assertThat(sokoban.redo()).isFalse();
+        assertThat(sokoban.getRecordedMoveCount()).isEqualTo(2);
+
+        sokoban.setPlayer(new Point(3, 4));
+        assertThat(sokoban.getRecordedMoveCount()).isEqualTo(0);
+    }
+
+    /**
+     * Checks that jumping to any position in a long history restores the state of that position.
+     */
+    @Test
+    public void shouldJumpToAnyPositionInHistory() {
+        //Given
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(LEVEL);
+        sokoban.setPlayer(new Point(3, 4));
+        sokoban.addTreasure(new Point(3, 3));
+        sokoban.addTreasure(new Point(4, 5));
+
+        Random random = new Random(4711);
+        List<String> states = new ArrayList<>();
+        states.add(describe(sokoban));
+        while (sokoban.getMoveCount() < 1000) {
+            if (sokoban.move(Orientation.values()[random.nextInt(4)]).hasMoved()) {
+                states.add(describe(sokoban));
+            }
+        }
+
+        //Then
+        int[] positions = {0, 999, 1000, 500, 128, 129, 127, 640, 3, 1000, 256, 255, 731};
+        for (int position : positions) {
+            sokoban.jumpTo(position);
+            assertThat(sokoban.getMoveCount()).isEqualTo(position);
+            assertThat(describe(sokoban)).as("Position %d", position).isEqualTo(states.get(position));
+        }
+
+        sokoban.jumpTo(300);
+        sokoban.move(Orientation.UP);
+        sokoban.move(Orientation.DOWN);
+        assertThat(sokoban.getRecordedMoveCount()).isLessThanOrEqualTo(302);
+        sokoban.jumpTo(10);
+        assertThat(describe(sokoban)).isEqualTo(states.get(10));
+        assertThatThrownBy(() -> sokoban.jumpTo(1000)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Checks that the lower bound of the remaining pushes is the cheapest assignment of the treasures to the targets
+     * after every move and undo.
+     */
+    @Test
+    public void shouldEstimateRemainingPushes() {
+        //Given
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(LEVEL);
+        sokoban.setPlayer(new Point(3, 4));
+        sokoban.addTreasure(new Point(3, 3));
+        sokoban.addTreasure(new Point(4, 5));
+
+        //When
+        assertThat(sokoban.estimateRemainingPushes()).isEqualTo(4);
+
+        //Then
+        Random random = new Random(4711);
+        for (int i = 0; i < 200; i++) {
+            if (random.nextInt(4) == 0) {
+                sokoban.undo();
+            }
+            else {
+                sokoban.move(Orientation.values()[random.nextInt(4)]);
+            }
+            assertThat(sokoban.estimateRemainingPushes()).as("Move %d", i).isEqualTo(findCheapestAssignment(sokoban));
+        }
+
+        sokoban.addTreasure(new Point(5, 4));
+        assertThatThrownBy(sokoban::estimateRemainingPushes).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new Sokoban().estimateRemainingPushes()).isInstanceOf(IllegalStateException.class);
+    }
+
+    private int findCheapestAssignment(final Sokoban sokoban) {
+        DistanceTable table = sokoban.getDistanceTable();
+        int[] cells = new int[2];
+        for (int i = 0; i < cells.length; i++) {
+            Point treasure = sokoban.getTreasures().get(i);
+            cells[i] = treasure.getY() * sokoban.getWidth() + treasure.getX();
+        }
+        long straight = (long) table.getDistance(0, cells[0]) + table.getDistance(1, cells[1]);
+        long crossed = (long) table.getDistance(1, cells[0]) + table.getDistance(0, cells[1]);
+        long minimum = Math.min(straight, crossed);
+        return minimum >= DistanceTable.UNREACHABLE ? DistanceTable.UNREACHABLE : (int) minimum;
+    }
+
+    /**
+     * Checks that the level is exported as a copy of the imported lines and that the border of the flat board is
+     * background.
+     */
+    @Test
+    public void shouldExportLevel() {
+        //Given
+        Sokoban sokoban = new Sokoban();
+        sokoban.setLevel(LEVEL);
+
+        //When
+        Field[][] level = sokoban.getLevel();
+
+        //Then
+        assertThat(level).isEqualTo(LEVEL);
+        level[2][2] = WALL;
+        assertThat(sokoban.getField(new Point(2, 2))).isEqualTo(FLOOR);
+        assertThat(sokoban.getField(-1, 3)).isEqualTo(BACKGROUND);
+        assertThat(sokoban.getField(8, 9)).isEqualTo(BACKGROUND);
+        assertThat(sokoban.getField(3, 2)).isEqualTo(TARGET);
+        assertThatThrownBy(() -> sokoban.getField(new Point(8, 2))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sokoban.getField(new Point(2, 9))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Sokoban().getLevel()).isInstanceOf(IllegalStateException.class);
+
+        assertThatThrownBy(() -> sokoban.setLevel(new Field[][]{{WALL, WALL}, {WALL}}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(sokoban.getLevel()).isEqualTo(LEVEL);
+    }
+
+    private String describe(final Sokoban sokoban) {
+        return sokoban.getPlayer() + " " + sokoban.getTreasures() + " " + sokoban.isSolved();
+    }
 }
@@ -0,0 +1,83 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link TileAtlas}.
+ *
+ * @author Julian Wagner
+ */
+public class TileAtlasTest {
+    /**
+     * Creates an atlas with solid colored tiles, so that tests do not depend on the images in the class path. Each
+     * tile gets a different color; the sprites (treasure and player) have a transparent border.
+     *
+     * @param blockSize the block size of the atlas
+     * @return the atlas
+     */
+    static TileAtlas createAtlas(final int blockSize) {
+        Map<String, BufferedImage> images = new HashMap<>();
+        String[] names = TileAtlas.getTileNames();
+        for (int i = 0; i < names.length; i++) {
+            int size = blockSize * 2;
+            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            int color = 0xFF000000 | (i * 0x1F3D5B + 0x102030) & 0xFFFFFF;
+            boolean isSprite = i >= Field.values().length;
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    boolean isBorder = x < size / 4 || y < size / 4;
+                    image.setRGB(x, y, isSprite && isBorder ? 0x80FFFFFF & color : color);
+                }
+            }
+            images.put(names[i], image);
+        }
+        return new TileAtlas(blockSize, images);
+    }
+
+    /**
+     * Checks that all tiles are preloaded and scaled to the block size.
+     */
+    @Test
+    public void shouldPreloadScaledTiles() {
+        //Given
+        TileAtlas atlas = createAtlas(8);
+
+        //When
+        BufferedImage floor = atlas.getTile(Field.FLOOR);
+        BufferedImage player = atlas.getTile(Orientation.LEFT);
+        BufferedImage treasure = atlas.getTile(TileAtlas.TREASURE);
+
+        //Then
+        assertThat(atlas.getBlockSize()).isEqualTo(8);
+        assertThat(floor.getWidth()).isEqualTo(8);
+        assertThat(floor.getHeight()).isEqualTo(8);
+        assertThat(floor.getType()).isEqualTo(BufferedImage.TYPE_INT_ARGB);
+        assertThat(atlas.getTile(Field.FLOOR)).isSameAs(floor);
+        assertThat(player).isNotSameAs(treasure);
+        assertThat(atlas.getHitCount()).isEqualTo(4);
+        assertThat(atlas.getMissCount()).isEqualTo(0);
+        assertThat(atlas.getLoadTimeNanos()).isPositive();
+        assertThat(TileAtlas.getTileNames()).hasSize(9).contains("floor", "wall", "target", "background",
+                "treasure", "left", "right", "up", "down");
+    }
+
+    /**
+     * Checks that an unknown tile is counted as miss and reported as error.
+     */
+    @Test
+    public void shouldCountMissForUnknownTile() {
+        TileAtlas atlas = createAtlas(4);
+
+        assertThatThrownBy(() -> atlas.getTile("unknown"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Can't find image unknown.png");
+        assertThat(atlas.getMissCount()).isEqualTo(1);
+        assertThatThrownBy(() -> new TileAtlas(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the throughput of the {@link XsbLevelReader} in levels per second. A collection with the specified number
+ * of levels is written to a temporary file, then the file is read several times. The first runs warm up the JIT.
+ *
+ * <p>
+ * Usage: {@code XsbLevelReaderBenchmark [levels] [runs]}
+ * </p>
+ *
+ * @author Julian Wagner
+ */
+public final class XsbLevelReaderBenchmark {
+    private static final int WARM_UP_RUNS = 3;
+
+    private XsbLevelReaderBenchmark() {
+        // prevents instantiation
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the number of levels (default 50000) and the number of measured runs (default 5)
+     * @throws IOException if the collection can't be written or read
+     */
+    public static void main(final String[] args) throws IOException {
+        int levels = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path path = Files.createTempFile("collection-", ".xsb");
+        try {
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < levels; i += 2) {
+                    writer.write(String.format("; Level %d%n", i));
+                    writer.write(XsbLevelReaderTest.COLLECTION);
+                }
+            }
+            System.out.printf("Collection: %d levels, %d KB%n", levels, Files.size(path) / 1024);
+
+            for (int run = 0; run < WARM_UP_RUNS + runs; run++) {
+                long start = System.nanoTime();
+                int count = read(path);
+                long duration = System.nanoTime() - start;
+                System.out.printf("%s %d: %d levels in %d ms, %.0f levels/s%n",
+                        run < WARM_UP_RUNS ? "Warm-up" : "Run", run, count, duration / 1_000_000,
+                        count * 1e9 / duration);
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    private static int read(final Path path) throws IOException {
+        int count = 0;
+        int treasures = 0;
+        try (XsbLevelReader reader = new XsbLevelReader(path)) {
+            while (reader.hasNext()) {
+                treasures += reader.next().getTreasures().size();
+                count++;
+            }
+        }
+        if (treasures == 0) {
+            throw new IllegalStateException("No treasures read!");
+        }
+        return count;
+    }
+}
@@ -0,0 +1,129 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link XsbLevelReader}.
+ *
+ * @author Julian Wagner
+ */
+public class XsbLevelReaderTest {
+    /** A collection with two levels, titles, comments and Windows line endings in the second level. */
+    static final String COLLECTION = "; Test collection\n"
+            + "\n"
+            + "Title: First\n"
+            + "  #####\n"
+            + "###   #\n"
+            + "#.@$  #\n"
+            + "### $.#\n"
+            + "#.##$ #\n"
+            + "# # . ##\n"
+            + "#$ *$$.#\n"
+            + "#   .  #\n"
+            + "########\n"
+            + "\n"
+            + "Title: Second\r\n"
+            + "#####  \r\n"
+            + "#+$-#\r\n"
+            + "#####\r\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Checks that the levels of a collection are read one after another and that comments are skipped.
+     */
+    @Test
+    public void shouldReadLevelsOfCollection() {
+        //Given
+        XsbLevelReader reader = new XsbLevelReader(new StringReader(COLLECTION));
+
+        //When
+        assertThat(reader.hasNext()).isTrue();
+        Sokoban first = reader.next();
+
+        //Then
+        assertThat(reader.getLineNumber()).isEqualTo(4);
+        assertThat(first.getWidth()).isEqualTo(8);
+        assertThat(first.getHeight()).isEqualTo(9);
+        assertThat(first.getField(Point.valueOf(0, 0))).isEqualTo(Field.BACKGROUND);
+        assertThat(first.getField(Point.valueOf(1, 0))).isEqualTo(Field.BACKGROUND);
+        assertThat(first.getField(Point.valueOf(7, 0))).isEqualTo(Field.BACKGROUND);
+        assertThat(first.getField(Point.valueOf(7, 1))).isEqualTo(Field.BACKGROUND);
+        assertThat(first.getField(Point.valueOf(2, 0))).isEqualTo(Field.WALL);
+        assertThat(first.getField(Point.valueOf(1, 2))).isEqualTo(Field.TARGET);
+        assertThat(first.getField(Point.valueOf(3, 6))).isEqualTo(Field.TARGET);
+        assertThat(first.getField(Point.valueOf(2, 2))).isEqualTo(Field.FLOOR);
+        assertThat(first.getField(Point.valueOf(1, 5))).isEqualTo(Field.FLOOR);
+        assertThat(first.getPlayer()).isEqualTo(Point.valueOf(2, 2));
+        assertThat(first.getTreasures().size()).isEqualTo(7);
+        assertThat(first.getTreasures().contains(Point.valueOf(3, 6))).isTrue();
+        first.validate();
+
+        Sokoban second = reader.next();
+        assertThat(reader.getLineNumber()).isEqualTo(15);
+        assertThat(second.getWidth()).isEqualTo(5);
+        assertThat(second.getHeight()).isEqualTo(3);
+        assertThat(second.getField(Point.valueOf(1, 1))).isEqualTo(Field.TARGET);
+        assertThat(second.getField(Point.valueOf(3, 1))).isEqualTo(Field.FLOOR);
+        assertThat(second.getPlayer()).isEqualTo(Point.valueOf(1, 1));
+        assertThat(second.getTreasures().toString()).isEqualTo("[(2, 1)]");
+
+        assertThat(reader.hasNext()).isFalse();
+        assertThatThrownBy(reader::next).isInstanceOf(NoSuchElementException.class);
+    }
+
+    /**
+     * Checks that a collection is read from a file and that it can be used in a for each loop.
+     *
+     * @throws IOException if the file can't be written
+     */
+    @Test
+    public void shouldReadCollectionFromFile() throws IOException {
+        Path path = folder.newFile("collection.xsb").toPath();
+        StringBuilder collection = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            collection.append("Level ").append(i).append('\n').append(COLLECTION);
+        }
+        Files.write(path, collection.toString().getBytes(StandardCharsets.UTF_8));
+
+        int count = 0;
+        try (XsbLevelReader reader = new XsbLevelReader(path)) {
+            while (reader.hasNext()) {
+                Sokoban sokoban = reader.next();
+                assertThat(sokoban.getTreasures().size()).isEqualTo(count % 2 == 0 ? 7 : 1);
+                count++;
+            }
+        }
+        assertThat(count).isEqualTo(2000);
+    }
+
+    /**
+     * Checks that levels without or with several players are rejected.
+     */
+    @Test
+    public void shouldRejectLevelsWithoutSinglePlayer() {
+        XsbLevelReader missing = new XsbLevelReader(new StringReader("Title\n#####\n#.$ #\n#####\n"));
+        assertThatThrownBy(missing::next).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("line 2");
+
+        XsbLevelReader duplicate = new XsbLevelReader(new StringReader("#####\n#@$@#\n#####"));
+        assertThatThrownBy(duplicate::next).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(new XsbLevelReader(new StringReader("")).hasNext()).isFalse();
+        assertThatThrownBy(() -> new XsbLevelReader((Reader) null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,109 @@
+package edu.hm.hafner.java2.sokoban;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the class {@link XsbLevelWriter}.
+ *
+ * @author Julian Wagner
+ */
+public class XsbLevelWriterTest {
+    private static final String LEVEL = "  #####\n"
+            + "###  +#\n"
+            + "#  $* #\n"
+            + "# .   #\n"
+            + "#######\n";
+
+    /**
+     * Checks that treasures and the player on targets are written as {@code *} and {@code +}.
+     */
+    @Test
+    public void shouldWriteObjectsOnTargets() {
+        //Given
+        Sokoban sokoban = new XsbLevelReader(new StringReader(LEVEL)).next();
+
+        //When
+        String text = XsbLevelWriter.toString(sokoban);
+
+        //Then
+        assertThat(text).isEqualTo(LEVEL);
+        assertThat(sokoban.toString()).isEqualTo(LEVEL);
+        assertThat(XsbLevelWriter.getLength(sokoban)).isEqualTo(LEVEL.length());
+
+        sokoban.move(Orientation.LEFT);
+        sokoban.move(Orientation.DOWN);
+        assertThat(sokoban.toString()).isEqualTo("  #####\n"
+                + "###  .#\n"
+                + "#  $+ #\n"
+                + "# . $ #\n"
+                + "#######\n");
+    }
+
+    /**
+     * Checks that the levels of a collection are written in the same way as they have been read.
+     *
+     * @throws IOException never
+     */
+    @Test
+    public void shouldWriteIntoAllTargets() throws IOException {
+        XsbLevelReader reader = new XsbLevelReader(new StringReader(XsbLevelReaderTest.COLLECTION));
+        Sokoban first = reader.next();
+        Sokoban second = reader.next();
+
+        char[] text = new char[XsbLevelWriter.getLength(first) + XsbLevelWriter.getLength(second) + 1];
+        text[0] = ';';
+        int length = XsbLevelWriter.write(first, text, 1);
+        XsbLevelWriter.write(second, text, 1 + length);
+        assertThat(new String(text)).isEqualTo(";"
+                + "  ##### \n"
+                + "###   # \n"
+                + "#.@$  # \n"
+                + "### $.# \n"
+                + "#.##$ # \n"
+                + "# # . ##\n"
+                + "#$ *$$.#\n"
+                + "#   .  #\n"
+                + "########\n"
+                + "#####\n"
+                + "#+$ #\n"
+                + "#####\n");
+
+        StringBuilder builder = new StringBuilder("Level:\n");
+        XsbLevelWriter.write(second, builder);
+        assertThat(builder.toString()).isEqualTo("Level:\n#####\n#+$ #\n#####\n");
+
+        StringWriter writer = new StringWriter();
+        XsbLevelWriter.write(second, writer);
+        assertThat(writer.toString()).isEqualTo("#####\n#+$ #\n#####\n");
+
+        CharBuffer buffer = CharBuffer.allocate(32);
+        XsbLevelWriter.write(second, buffer);
+        assertThat(buffer.position()).isEqualTo(18);
+
+        assertThat(new XsbLevelReader(new StringReader(first.toString())).next().toString())
+                .isEqualTo(first.toString());
+    }
+
+    /**
+     * Checks that missing levels and too small arrays are rejected.
+     */
+    @Test
+    public void shouldRejectInvalidTargets() {
+        Sokoban sokoban = new XsbLevelReader(new StringReader(LEVEL)).next();
+
+        assertThatThrownBy(() -> XsbLevelWriter.write(sokoban, new char[LEVEL.length()], 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> XsbLevelWriter.write(sokoban, new char[LEVEL.length()], -1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> XsbLevelWriter.toString(new Sokoban()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}